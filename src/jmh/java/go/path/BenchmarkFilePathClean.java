@@ -0,0 +1,82 @@
+/*
+ * Benchmark for Java port of Go path/filepath.Clean func
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static go.path.FilePath.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Run with gc profiler (enabled in build script)
+ * and check that gc.alloc.rate.norm is 0 B/op for clean of already clean String paths.
+ * The last path is not clean and shows the cost of the full algorithm.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkFilePathClean {
+  @Param({
+    "src/main/java/go/path/FilePath.java",
+    "/home/user/projects/go-java-port/build/classes/java/main/go/path/FilePathBytes$Lazybuf.class",
+    "/home/user/projects/go-java-port/build/../src/main/java/go/path/./FilePath.java",
+  })
+  public String path;
+
+  private ByteBuffer heapBytes;
+
+  private ByteBuffer directBytes;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final byte[] bytes = path.getBytes(StandardCharsets.UTF_8);
+    heapBytes = ByteBuffer.wrap(bytes);
+    directBytes = ByteBuffer.allocateDirect(bytes.length);
+    directBytes.put(bytes);
+    directBytes.flip();
+  }
+
+  @Benchmark
+  public void benchmarkIsClean(Blackhole blackhole) {
+    blackhole.consume(isClean(path));
+  }
+
+  @Benchmark
+  public void benchmarkClean(Blackhole blackhole) {
+    blackhole.consume(clean(path));
+  }
+
+  @Benchmark
+  public void benchmarkCleanHeapBytes(Blackhole blackhole) {
+    blackhole.consume(clean(heapBytes));
+  }
+
+  @Benchmark
+  public void benchmarkCleanDirectBytes(Blackhole blackhole) {
+    blackhole.consume(clean(directBytes));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Benchmark for bulk clean in Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static go.path.FilePath.*;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+public class BenchmarkFilePathCleanAll {
+  @Param({"10000", "1000000"})
+  public int size;
+
+  /**
+   * Percentage of paths which are not clean
+   */
+  @Param({"10", "100"})
+  public int unclean;
+
+  private String[] paths;
+
+  private String[] out;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final Random random = new Random(0);
+    paths = new String[size];
+    for (int i = 0; i < size; i++) {
+      final String path = "/home/user/projects/p" + random.nextInt(1000) + "/src/main/java/F" + i + ".java";
+      paths[i] = random.nextInt(100) < unclean ? path.replace("/src/", "/build/../src/./") : path;
+    }
+    out = new String[size];
+  }
+
+  @Benchmark
+  public void benchmarkClean(Blackhole blackhole) {
+    for (int i = 0; i < paths.length; i++) {
+      out[i] = clean(paths[i]);
+    }
+    blackhole.consume(out);
+  }
+
+  @Benchmark
+  public void benchmarkCleanAll(Blackhole blackhole) {
+    cleanAll(paths, out);
+    blackhole.consume(out);
+  }
+
+  @Benchmark
+  public void benchmarkCleanAllStream(Blackhole blackhole) {
+    blackhole.consume(cleanAll(Stream.of(paths).parallel()).collect(Collectors.toList()));
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Benchmark for Unix and Windows flavors of Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static go.path.FilePath.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Flavor methods are expected to run at the same speed
+ * as the static methods for the host operating system.
+ * Clean is measured for each path only,
+ * join and match for each pair of path and pattern
+ */
+public class BenchmarkFilePathFlavor {
+  @State(Scope.Benchmark)
+  public static class PathState {
+    @Param({"/home/user/project/./build/../src", "a//b/c/../../d", "main.go"})
+    public String path;
+  }
+
+  @State(Scope.Benchmark)
+  public static class PatternState extends PathState {
+    @Param({"*.go", "[a-z]*[0-9].[^t]*"})
+    public String pattern;
+  }
+
+  @Benchmark
+  public void benchmarkClean(PathState state, Blackhole blackhole) {
+    blackhole.consume(clean(state.path));
+  }
+
+  @Benchmark
+  public void benchmarkUnixClean(PathState state, Blackhole blackhole) {
+    blackhole.consume(UNIX.clean(state.path));
+  }
+
+  @Benchmark
+  public void benchmarkWindowsClean(PathState state, Blackhole blackhole) {
+    blackhole.consume(WINDOWS.clean(state.path));
+  }
+
+  @Benchmark
+  public void benchmarkJoin(PatternState state, Blackhole blackhole) {
+    blackhole.consume(join(state.path, state.pattern));
+  }
+
+  @Benchmark
+  public void benchmarkUnixJoin(PatternState state, Blackhole blackhole) {
+    blackhole.consume(UNIX.join(state.path, state.pattern));
+  }
+
+  @Benchmark
+  public void benchmarkWindowsJoin(PatternState state, Blackhole blackhole) {
+    blackhole.consume(WINDOWS.join(state.path, state.pattern));
+  }
+
+  @Benchmark
+  public void benchmarkMatch(PatternState state, Blackhole blackhole) {
+    blackhole.consume(match(state.pattern, state.path));
+  }
+
+  @Benchmark
+  public void benchmarkUnixMatch(PatternState state, Blackhole blackhole) {
+    blackhole.consume(UNIX.match(state.pattern, state.path));
+  }
+
+  @Benchmark
+  public void benchmarkWindowsMatch(PatternState state, Blackhole blackhole) {
+    blackhole.consume(WINDOWS.match(state.pattern, state.path));
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Benchmark for Java port of Go path/filepath.Join func
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static go.path.FilePath.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+@State(Scope.Benchmark)
+public class BenchmarkFilePathJoin {
+  @Param({"/home/user/project", "/home/user/project/", "./build/../src"})
+  public String root;
+
+  @Param({"main.go", "src/main/java/go/path/FilePath.java", "../other/file.txt"})
+  public String name;
+
+  @Benchmark
+  public void benchmarkJoin(Blackhole blackhole) {
+    blackhole.consume(join(root, name));
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * Benchmark for Java port of Go path/filepath.Match func
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static go.path.FilePath.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Run with gc profiler (enabled in build script)
+ * and check that gc.alloc.rate.norm is 0 B/op
+ */
+@State(Scope.Benchmark)
+public class BenchmarkFilePathMatch {
+  @Param({"*.*.log", "access-*.log", "a*b?c*x", "[a-z]*[0-9].[^t]*"})
+  public String pattern;
+
+  @Param({"access-2019-05-21.log", "error.2019.05.21.log.gz", "abxbbxdbxebxczzx"})
+  public String name;
+
+  private CompiledPattern compiled;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    compiled = compile(pattern);
+  }
+
+  @Benchmark
+  public void benchmarkMatch(Blackhole blackhole) {
+    blackhole.consume(match(pattern, name));
+  }
+
+  @Benchmark
+  public void benchmarkCompiledMatch(Blackhole blackhole) {
+    blackhole.consume(compiled.matches(name));
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Benchmark for Java port of Go path/filepath.WalkDir func
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static go.path.FilePath.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/*
+ * Tree of 50 x 50 directories with 50 files each,
+ * 127.5K entries in total.
+ * The tree is built once in the temporary directory
+ * and reused by later trials and forks
+ */
+@State(Scope.Benchmark)
+public class BenchmarkFilePathWalkDir {
+  @Param({"50"})
+  public int fanOut;
+
+  private Path root;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    root = Paths.get(System.getProperty("java.io.tmpdir"), "BenchmarkFilePathWalkDir-" + fanOut);
+    // Marker is created after the whole tree, so that an interrupted setup is completed next time
+    final Path complete = root.resolve("complete");
+    if (Files.exists(complete)) {
+      return;
+    }
+    for (int i = 0; i < fanOut; i++) {
+      for (int j = 0; j < fanOut; j++) {
+        Path dir = Files.createDirectories(root.resolve(String.format("d%03d", i)).resolve(String.format("d%03d", j)));
+        for (int k = 0; k < fanOut; k++) {
+          Path file = dir.resolve(String.format("f%03d.txt", k));
+          if (!Files.exists(file)) {
+            Files.createFile(file);
+          }
+        }
+      }
+    }
+    Files.createFile(complete);
+  }
+
+  @Benchmark
+  public void benchmarkWalkDir(Blackhole blackhole) throws IOException {
+    walkDir(root.toString(), (path, d, err) -> blackhole.consume(path));
+  }
+
+  @Benchmark
+  public void benchmarkWalkDirConcurrent(Blackhole blackhole) throws IOException {
+    walkDirConcurrent(root.toString(), (path, d, err) -> blackhole.consume(path));
+  }
+}
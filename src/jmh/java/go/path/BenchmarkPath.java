@@ -0,0 +1,60 @@
+/*
+ * Benchmark for Java port of Go path package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/*
+ * Run with gc profiler (enabled in build script)
+ * and check that gc.alloc.rate.norm is 0 B/op
+ * for Path.clean of already clean paths
+ */
+@State(Scope.Benchmark)
+public class BenchmarkPath {
+  @Param({"/api/v1/users/42/orders", "bucket/2019/05/21/access.log", "/api/v1//users/./42/../42/orders/"})
+  public String path;
+
+  @Benchmark
+  public void benchmarkClean(Blackhole blackhole) {
+    blackhole.consume(Path.clean(path));
+  }
+
+  @Benchmark
+  public void benchmarkFilePathClean(Blackhole blackhole) {
+    blackhole.consume(FilePath.clean(path));
+  }
+
+  @Benchmark
+  public void benchmarkJoin(Blackhole blackhole) {
+    blackhole.consume(Path.join(path, "items"));
+  }
+
+  @Benchmark
+  public void benchmarkBase(Blackhole blackhole) {
+    blackhole.consume(Path.base(path));
+  }
+}
@@ -45,6 +45,16 @@ public final class Os {
    */
   public static final char PATH_SEPARATOR = Runtime.GOOS == WINDOWS ? '\\' : '/';
 
+  /**
+   * OS-specific path list separator
+   */
+  /* Source files:
+   * src/os/path_plan9.go
+   * src/os/path_unix.go
+   * src/os/path_windows.go
+   */
+  public static final char PATH_LIST_SEPARATOR = Runtime.GOOS == WINDOWS ? ';' : Runtime.GOOS == PLAN9 ? '\000' : ':';
+
   /**
    * IsPathSeparator reports whether {@code c} is a directory separator character.
    * @param c
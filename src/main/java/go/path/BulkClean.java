@@ -0,0 +1,159 @@
+/*
+ * Bulk clean for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of {@link FilePath#cleanAll}.
+ *
+ * Paths which are already clean are passed through as is.
+ * Other paths are cleaned into a scratch buffer kept per thread,
+ * so the only allocation per path is the resulting String.
+ */
+final class BulkClean {
+  /**
+   * Batches not longer than this are cleaned in a single thread
+   */
+  static final int THRESHOLD = 4096;
+
+  /**
+   * Scratch buffers longer than this are not kept between calls
+   */
+  private static final int MAX_SCRATCH_LENGTH = 4096;
+
+  private static final ThreadLocal<char[]> SCRATCH = ThreadLocal.withInitial(() -> new char[256]);
+
+  /**
+   * scratch returns buffer of at least length chars
+   *
+   * @param length
+   * @return
+   */
+  private static char[] scratch(final int length) {
+    final char[] scratch = SCRATCH.get();
+    if (scratch.length >= length) {
+      return scratch;
+    }
+    final char[] result = new char[length];
+    if (length <= MAX_SCRATCH_LENGTH) {
+      SCRATCH.set(result);
+    }
+    return result;
+  }
+
+  /**
+   * clean is like {@link FilePath#clean(String)},
+   * but uses scratch buffer of the current thread.
+   *
+   * @param path
+   * @param windows
+   * @return
+   */
+  static String clean(final String path, final boolean windows) {
+    if (FilePath.isClean(path, windows)) {
+      return path;
+    }
+    // clean could append "." to empty path
+    return FilePath.clean(path, scratch(path.length() + 1), windows);
+  }
+
+  /**
+   * clean cleans {@code in[low, high)} into {@code out[low, high)}
+   *
+   * @param in
+   * @param out
+   * @param low
+   * @param high
+   * @param windows
+   */
+  private static void clean(final String[] in, final String[] out, final int low, final int high, final boolean windows) {
+    for (int i = low; i < high; i++) {
+      out[i] = clean(in[i], windows);
+    }
+  }
+
+  /**
+   * See {@link FilePath#cleanAll(String[], String[], ForkJoinPool)}
+   *
+   * @param in
+   * @param out
+   * @param pool
+   * @param windows
+   */
+  static void cleanAll(final String[] in, final String[] out, final ForkJoinPool pool, final boolean windows) {
+    if (out.length < in.length) {
+      throw new IndexOutOfBoundsException("out is too short: " + out.length);
+    }
+    if (in.length <= THRESHOLD) {
+      clean(in, out, 0, in.length, windows);
+      return;
+    }
+    pool.invoke(new CleanTask(in, out, 0, in.length, windows));
+  }
+
+  /**
+   * See {@link FilePath#cleanAll(Stream)}
+   *
+   * @param paths
+   * @param windows
+   * @return
+   */
+  static Stream<String> cleanAll(final Stream<String> paths, final boolean windows) {
+    return paths.map(path -> clean(path, windows));
+  }
+
+  /**
+   * CleanTask cleans a range of array, splitting it in halves
+   * until they are not longer than {@link #THRESHOLD}
+   */
+  private static final class CleanTask extends RecursiveAction {
+    private final String[] in;
+    private final String[] out;
+    private final int low;
+    private final int high;
+    private final boolean windows;
+
+    CleanTask(String[] in, String[] out, int low, int high, boolean windows) {
+      this.in = in;
+      this.out = out;
+      this.low = low;
+      this.high = high;
+      this.windows = windows;
+    }
+
+    @Override
+    protected void compute() {
+      if (high - low <= THRESHOLD) {
+        clean(in, out, low, high, windows);
+        return;
+      }
+      final int middle = (low + high) >>> 1;
+      invokeAll(new CleanTask(in, out, low, middle, windows), new CleanTask(in, out, middle, high, windows));
+    }
+  }
+
+  private BulkClean() {}
+}
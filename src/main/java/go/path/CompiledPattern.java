@@ -0,0 +1,476 @@
+/*
+ * Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ * Copyright 2010 The Go Authors. All rights reserved.
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import go.unicode.Utf16;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CompiledPattern is a shell file name pattern, as accepted by {@link FilePath#match},
+ * which is parsed once and then can be matched against any number of names.
+ *
+ * Instances are immutable and safe for use by multiple concurrent threads.
+ *
+ * CAVEAT:
+ * Go 1.12 {@code Match} reports {@code ErrBadPattern} only when it reaches
+ * the malformed part of the pattern, so {@code Match("a[", "a")} returns false without an error.
+ * {@link FilePath#compile} validates the whole pattern up front, as {@code Match} does since Go 1.16.
+ * For well-formed patterns result of {@link #matches} is always the same as of {@link FilePath#match}.
+ */
+/*
+ * Source files:
+ * src/path/filepath/match.go
+ */
+public final class CompiledPattern {
+  /**
+   * Op matching any single non-Separator character, {@code '?'}.
+   * Non-negative ops are literal characters,
+   * ops less than {@code OP_ANY} are character classes with index {@code OP_CLASS - op}
+   */
+  private static final int OP_ANY = -1;
+  private static final int OP_CLASS = -2;
+
+  private final String pattern;
+  private final char separator;
+  /**
+   * Whether each chunk is preceded by a star
+   */
+  private final boolean[] stars;
+  private final int[][] chunks;
+  private final CharClass[] classes;
+  /**
+   * Literal characters any matching name starts with
+   */
+  private final String literalPrefix;
+  /**
+   * Literal characters any matching name ends with
+   */
+  private final String literalSuffix;
+  /**
+   * Whether pattern has no meta characters, so that it matches only literalPrefix
+   */
+  private final boolean literal;
+  /**
+   * Literal strings any matching name contains, in order,
+   * between literalPrefix and literalSuffix
+   */
+  private final String[] required;
+  /**
+   * Minimum length of matching name
+   */
+  private final int minLength;
+
+  private CompiledPattern(String pattern, char separator, boolean[] stars, int[][] chunks, CharClass[] classes) {
+    this.pattern = pattern;
+    this.separator = separator;
+    this.stars = stars;
+    this.chunks = chunks;
+    this.classes = classes;
+    if (chunks.length == 0) {
+      // Empty pattern matches only empty name
+      literalPrefix = "";
+      literalSuffix = "";
+      literal = true;
+      required = new String[0];
+      minLength = 0;
+    } else {
+      final int[] first = chunks[0];
+      final int[] last = chunks[chunks.length - 1];
+      int prefixHigh = 0;
+      if (!stars[0]) {
+        while (prefixHigh < first.length && first[prefixHigh] >= 0) {
+          prefixHigh++;
+        }
+      }
+      // Last chunk has to match the end of the name, unless it is empty (trailing star)
+      int suffixLow = last.length;
+      while (suffixLow > 0 && last[suffixLow - 1] >= 0) {
+        suffixLow--;
+      }
+      literalPrefix = opsToString(first, 0, prefixHigh);
+      literalSuffix = opsToString(last, suffixLow, last.length);
+      literal = chunks.length == 1 && !stars[0] && prefixHigh == first.length;
+
+      // Each op matches at least one char
+      int length = 0;
+      // Runs of literal ops other than prefix and suffix
+      final List<String> runs = new ArrayList<>();
+      for (int c = 0; c < chunks.length; c++) {
+        final int[] chunk = chunks[c];
+        length += chunk.length;
+        int low = c == 0 ? prefixHigh : 0;
+        final int high = c == chunks.length - 1 ? Math.max(suffixLow, low) : chunk.length;
+        while (low < high) {
+          if (chunk[low] < 0) {
+            low++;
+            continue;
+          }
+          int runHigh = low;
+          while (runHigh < high && chunk[runHigh] >= 0) {
+            runHigh++;
+          }
+          runs.add(opsToString(chunk, low, runHigh));
+          low = runHigh;
+        }
+      }
+      required = runs.toArray(new String[0]);
+      minLength = length;
+    }
+  }
+
+  private static String opsToString(int[] ops, int low, int high) {
+    final char[] result = new char[high - low];
+    for (int i = low; i < high; i++) {
+      result[i - low] = (char)ops[i];
+    }
+    return new String(result);
+  }
+
+  /**
+   * Character class, {@code '[' [ '^' ] { character-range } ']'}
+   */
+  private static final class CharClass {
+    private final boolean negated;
+    /**
+     * Pairs of (lo, hi)
+     */
+    private final int[] ranges;
+    /**
+     * Precomputed result for ASCII runes, with negation already applied
+     */
+    private final long ascii0;
+    private final long ascii1;
+
+    CharClass(boolean negated, int[] ranges) {
+      this.negated = negated;
+      this.ranges = ranges;
+      long a0 = 0L;
+      long a1 = 0L;
+      for (int r = 0; r < 128; r++) {
+        if (inRanges(r) != negated) {
+          if (r < 64) {
+            a0 |= 1L << r;
+          } else {
+            a1 |= 1L << (r - 64);
+          }
+        }
+      }
+      ascii0 = a0;
+      ascii1 = a1;
+    }
+
+    private boolean inRanges(int r) {
+      for (int i = 0; i < ranges.length; i += 2) {
+        if (ranges[i] <= r && r <= ranges[i + 1]) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean matches(int r) {
+      if (r < 64) {
+        return (ascii0 & (1L << r)) != 0;
+      }
+      if (r < 128) {
+        return (ascii1 & (1L << (r - 64))) != 0;
+      }
+      return inRanges(r) != negated;
+    }
+  }
+
+  /**
+   * compile parses pattern into chunks.
+   *
+   * @param pattern
+   * @param windows whether pattern is for Windows paths
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  static CompiledPattern compile(final String pattern, final boolean windows) {
+    final List<Boolean> stars = new ArrayList<>();
+    final List<int[]> chunks = new ArrayList<>();
+    final List<CharClass> classes = new ArrayList<>();
+    final int patternHigh = pattern.length();
+    int patternLow = 0;
+    while (patternLow < patternHigh) {
+      final long scanChunkResult = FilePath.scanChunk(pattern, patternLow, windows);
+      final int chunkLow = FilePath.chunkLow(scanChunkResult);
+      final int chunkHigh = FilePath.chunkHigh(scanChunkResult);
+      stars.add(chunkLow > patternLow);
+      chunks.add(compileChunk(pattern, chunkLow, chunkHigh, classes, windows));
+      patternLow = chunkHigh;
+    }
+    final boolean[] starsArray = new boolean[stars.size()];
+    for (int i = 0; i < starsArray.length; i++) {
+      starsArray[i] = stars.get(i);
+    }
+    return new CompiledPattern(
+      pattern,
+      FilePath.separator(windows),
+      starsArray,
+      chunks.toArray(new int[0][]),
+      classes.toArray(new CharClass[0])
+    );
+  }
+
+  /**
+   * compileChunk parses chunk into ops,
+   * reporting all errors that matchChunk could report.
+   *
+   * @param chunk
+   * @param chunkLow
+   * @param chunkHigh
+   * @param classes
+   * @param windows
+   * @return ops
+   * @throws FilePath.ErrBadPattern
+   */
+  private static int[] compileChunk(final String chunk, int chunkLow, final int chunkHigh, final List<CharClass> classes, final boolean windows) {
+    final int[] ops = new int[chunkHigh - chunkLow];
+    int n = 0;
+    while (chunkLow < chunkHigh) {
+      switch (chunk.charAt(chunkLow)) {
+        case '[':
+          chunkLow++;
+          if (chunkLow == chunkHigh) {
+            throw new FilePath.ErrBadPattern();
+          }
+          // possibly negated
+          final boolean negated = chunk.charAt(chunkLow) == '^';
+          if (negated) {
+            chunkLow++;
+          }
+          // parse all ranges
+          final List<Integer> ranges = new ArrayList<>();
+          while (true) {
+            if (chunkLow < chunkHigh && chunk.charAt(chunkLow) == ']' && !ranges.isEmpty()) {
+              chunkLow++;
+              break;
+            }
+            final int lo;
+            final int hi;
+            long getEscResult = FilePath.getEsc(chunk, chunkLow, chunkHigh, windows);
+            lo = FilePath.escR(getEscResult);
+            chunkLow = FilePath.escNChunkLow(getEscResult);
+            if (chunk.charAt(chunkLow) == '-') {
+              getEscResult = FilePath.getEsc(chunk, chunkLow + 1, chunkHigh, windows);
+              hi = FilePath.escR(getEscResult);
+              chunkLow = FilePath.escNChunkLow(getEscResult);
+            } else {
+              hi = lo;
+            }
+            ranges.add(lo);
+            ranges.add(hi);
+          }
+          final int[] rangesArray = new int[ranges.size()];
+          for (int i = 0; i < rangesArray.length; i++) {
+            rangesArray[i] = ranges.get(i);
+          }
+          ops[n++] = OP_CLASS - classes.size();
+          classes.add(new CharClass(negated, rangesArray));
+          break;
+
+        case '?':
+          ops[n++] = OP_ANY;
+          chunkLow++;
+          break;
+
+        case '\\':
+          if (!windows) {
+            chunkLow++;
+            if (chunkLow == chunkHigh) {
+              throw new FilePath.ErrBadPattern();
+            }
+          }
+          // fallthrough
+
+        default:
+          ops[n++] = chunk.charAt(chunkLow);
+          chunkLow++;
+      }
+    }
+    final int[] result = new int[n];
+    System.arraycopy(ops, 0, result, 0, n);
+    return result;
+  }
+
+  /**
+   * Returns the source pattern
+   *
+   * @return
+   */
+  public String pattern() {
+    return pattern;
+  }
+
+  /**
+   * Returns literal characters any matching name starts with
+   *
+   * @return
+   */
+  String literalPrefix() {
+    return literalPrefix;
+  }
+
+  /**
+   * Returns literal characters any matching name ends with
+   *
+   * @return
+   */
+  String literalSuffix() {
+    return literalSuffix;
+  }
+
+  /**
+   * Reports whether pattern matches only one name, {@link #literalPrefix()}
+   *
+   * @return
+   */
+  boolean isLiteral() {
+    return literal;
+  }
+
+  /**
+   * matches reports whether name matches the pattern.
+   *
+   * @param name
+   * @return
+   * @see FilePath#match
+   */
+  public boolean matches(final String name) {
+    if (literal) {
+      return name.equals(literalPrefix);
+    }
+    if (!mayMatch(name)) {
+      return false;
+    }
+    int nameLow = 0;
+    final int nameHigh = name.length();
+    final int chunksHigh = chunks.length;
+    chunks:
+    for (int c = 0; c < chunksHigh; c++) {
+      final int[] chunk = chunks[c];
+      final boolean star = stars[c];
+      if (star && chunk.length == 0) {
+        // Trailing * matches rest of string unless it has a /.
+        return name.indexOf(separator, nameLow) == -1;
+      }
+      final boolean last = c + 1 == chunksHigh;
+      // Look for match at current position.
+      int t = matchChunk(chunk, name, nameLow);
+      // if we're the last chunk, make sure we've exhausted the name
+      // otherwise we'll give a false result even if we could still match
+      // using the star
+      if (t >= 0 && (t == nameHigh || !last)) {
+        nameLow = t;
+        continue;
+      }
+      if (star) {
+        // Look for match skipping i+1 bytes.
+        // Cannot skip /.
+        for (int i = nameLow; i < nameHigh && name.charAt(i) != separator; i++) {
+          t = matchChunk(chunk, name, i + 1);
+          if (t >= 0) {
+            // if we're the last chunk, make sure we exhausted the name
+            if (last && t < nameHigh) {
+              continue;
+            }
+            nameLow = t;
+            continue chunks;
+          }
+        }
+      }
+      return false;
+    }
+    return nameLow == nameHigh;
+  }
+
+  /**
+   * mayMatch rejects names which lack mandatory literal parts of the pattern.
+   * It is much cheaper than full matching, and for typical patterns
+   * like {@code access-*.log} or {@code *.tmp} rejects most names.
+   *
+   * @param name
+   * @return false if name doesn't match, true if it may match
+   */
+  private boolean mayMatch(final String name) {
+    final int nameHigh = name.length();
+    if (nameHigh < minLength || !name.startsWith(literalPrefix) || !name.endsWith(literalSuffix)) {
+      return false;
+    }
+    // Chunks match in order and don't overlap
+    int low = literalPrefix.length();
+    final int high = nameHigh - literalSuffix.length();
+    for (final String s : required) {
+      final int i = name.indexOf(s, low);
+      if (i == -1) {
+        return false;
+      }
+      low = i + s.length();
+    }
+    return low <= high;
+  }
+
+  /**
+   * matchChunk checks whether chunk matches the beginning of s.
+   *
+   * @param chunk
+   * @param s
+   * @param sLow
+   * @return index of the remainder of s (after the match), or -1 if there is no match
+   */
+  private int matchChunk(final int[] chunk, final String s, int sLow) {
+    final int sHigh = s.length();
+    for (final int op : chunk) {
+      if (sLow == sHigh) {
+        return -1;
+      }
+      if (op >= 0) {
+        if (op != s.charAt(sLow)) {
+          return -1;
+        }
+        sLow++;
+      } else if (op == OP_ANY) {
+        if (s.charAt(sLow) == separator) {
+          return -1;
+        }
+        sLow += Character.charCount(Utf16.decodeRuneAt(s, sLow));
+      } else {
+        final int r = Utf16.decodeRuneAt(s, sLow);
+        if (!classes[OP_CLASS - op].matches(r)) {
+          return -1;
+        }
+        sLow += Character.charCount(r);
+      }
+    }
+    return sLow;
+  }
+
+  @Override
+  public String toString() {
+    return pattern;
+  }
+}
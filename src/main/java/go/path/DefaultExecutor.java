@@ -0,0 +1,79 @@
+/*
+ * Executors for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default executor for blocking file system operations.
+ *
+ * Go runs goroutines blocked in system calls without limiting other goroutines.
+ * The nearest Java equivalent is virtual threads (JDK 21+).
+ * On older JDKs a dedicated pool of daemon threads is used, bounded by {@link #MAX_THREADS},
+ * so that blocking reads don't occupy threads of
+ * {@link java.util.concurrent.ForkJoinPool#commonPool()} needed for computations.
+ */
+final class DefaultExecutor {
+  /**
+   * Executor starting a new virtual thread for each task,
+   * or null if virtual threads are not available
+   */
+  static final Executor VIRTUAL_THREADS = newVirtualThreadPerTaskExecutor();
+
+  /**
+   * Maximum number of threads of the pool used when virtual threads are not available.
+   * Reads are blocked on I/O most of the time, so there are more threads than processors
+   */
+  static final int MAX_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+  static final Executor INSTANCE = VIRTUAL_THREADS != null ? VIRTUAL_THREADS : newThreadPool();
+
+  private static Executor newVirtualThreadPerTaskExecutor() {
+    // Reflection is used since library is compiled for Java 8
+    try {
+      return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException | SecurityException ignored) {
+      return null;
+    }
+  }
+
+  private static Executor newThreadPool() {
+    // Queue is unbounded, so that tasks are not rejected
+    final ThreadPoolExecutor result = new ThreadPoolExecutor(
+      MAX_THREADS, MAX_THREADS,
+      60, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<>(),
+      new ThreadFactoryBuilder().setNameFormat("go-path-io-%d").setDaemon(true).build()
+    );
+    // Idle threads are stopped
+    result.allowCoreThreadTimeOut(true);
+    return result;
+  }
+
+  private DefaultExecutor() {}
+}
@@ -0,0 +1,243 @@
+/*
+ * Directory listing cache for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of directory listings for repeated {@link FilePath#glob(String, DirListingCache)} calls.
+ *
+ * Cache keeps sorted names of all files in a directory together with
+ * modification time of the directory. Before a cached listing is reused,
+ * modification time of the directory is read again, and if it has changed,
+ * the directory is read again. Checking modification time costs one stat
+ * instead of reading the whole directory.
+ *
+ * A directory may be modified after it was read without change of its
+ * modification time, when both happen within resolution of file system timestamps.
+ * As git does with "racy" index entries, the cache keeps the time the directory
+ * was read, and doesn't reuse the listing while modification time of the directory
+ * is not older than that time by at least 2 seconds.
+ * Such directories are read every time until they have been left unmodified for a while.
+ * CAVEAT: Read time is taken from the clock of the JVM, so the check assumes
+ * that the clock of the file system is not behind it by more than a second or so.
+ *
+ * When the cache is full, least recently used listings are evicted.
+ *
+ * Instances are safe for use by multiple concurrent threads.
+ */
+public final class DirListingCache {
+  private static final String[] EMPTY = new String[0];
+
+  /**
+   * Margin for resolution of file system timestamps, in milliseconds.
+   * It covers the coarsest common resolution, 2 seconds of FAT,
+   * and small clock differences with network file systems.
+   *
+   * CAVEAT: Modification times are set by the clock of the file system
+   * (of the server for network file systems), while read time is taken
+   * from the clock of the JVM. The check assumes that the clock of the file system
+   * is not behind the clock of the JVM by more than the margin less the resolution of timestamps.
+   * Otherwise, a modification made right after reading may get an older modification time,
+   * and a stale listing may be reused. A clock of the file system ahead of the JVM one
+   * only makes the cache read such directories more often.
+   */
+  static final long RACY_MARGIN_MILLIS = 2000;
+
+  private static final class Listing {
+    final FileTime modTime;
+    /**
+     * Time the directory was read, in milliseconds since the epoch
+     */
+    final long readTime;
+    final String[] names;
+
+    Listing(FileTime modTime, long readTime, String[] names) {
+      this.modTime = modTime;
+      this.readTime = readTime;
+      this.names = names;
+    }
+
+    /**
+     * isRacy reports whether the directory could be modified after it was read
+     * within the same timestamp of the file system
+     */
+    boolean isRacy() {
+      return modTime.toMillis() > readTime - RACY_MARGIN_MILLIS;
+    }
+  }
+
+  private final Cache<String, Listing> cache;
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+  private final LongAdder evictionCount = new LongAdder();
+  private final DirReader reader = new Reader();
+
+  /**
+   * Creates cache
+   *
+   * @param maximumSize maximum number of directory listings to keep
+   */
+  public DirListingCache(long maximumSize) {
+    cache = CacheBuilder.newBuilder()
+      .maximumSize(maximumSize)
+      // Single segment gives exact LRU order
+      .concurrencyLevel(1)
+      .<String, Listing>removalListener(notification -> {
+        if (notification.getCause() == RemovalCause.SIZE) {
+          evictionCount.increment();
+        }
+      })
+      .build();
+  }
+
+  /**
+   * Returns the number of times cached listing was reused
+   *
+   * @return
+   */
+  public long hitCount() {
+    return hitCount.sum();
+  }
+
+  /**
+   * Returns the number of times directory was read,
+   * because it was not cached or cached listing was out of date
+   *
+   * @return
+   */
+  public long missCount() {
+    return missCount.sum();
+  }
+
+  /**
+   * Returns the number of listings evicted because the cache was full
+   *
+   * @return
+   */
+  public long evictionCount() {
+    return evictionCount.sum();
+  }
+
+  /**
+   * Returns the current number of cached listings
+   *
+   * @return
+   */
+  public long size() {
+    return cache.size();
+  }
+
+  /**
+   * Discards all cached listings
+   */
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  /**
+   * Returns reader of directories through this cache
+   *
+   * @return
+   */
+  DirReader dirReader() {
+    return reader;
+  }
+
+  private final class Reader implements DirReader {
+    @Override
+    public boolean exists(String path) {
+      return NioDirReader.DEFAULT.exists(path);
+    }
+
+    @Override
+    public String[] readDirNames(String dir, CompiledPattern pattern, boolean dirsOnly) {
+      final String[] names = DirListingCache.this.readDirNames(dir);
+      final String[] result = new String[names.length];
+      int n = 0;
+      for (String name : names) {
+        if (pattern.matches(name)) {
+          result[n++] = name;
+        }
+      }
+      return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+  }
+
+  /**
+   * readDirNames returns sorted names of all files in the directory dir,
+   * from cache if it is up to date.
+   *
+   * @param dir
+   * @return
+   */
+  private String[] readDirNames(String dir) {
+    final Path d = NioDirReader.DEFAULT.toPath(dir);
+    if (d == null) {
+      return EMPTY;
+    }
+    // Read time and modification time are taken before listing, so that changes made while listing
+    // are detected next time
+    final long readTime = System.currentTimeMillis();
+    final FileTime modTime;
+    try {
+      modTime = Files.getLastModifiedTime(d);
+    } catch (IOException ignored) {
+      cache.invalidate(dir);
+      return EMPTY;
+    }
+    final Listing cached = cache.getIfPresent(dir);
+    if (cached != null && cached.modTime.equals(modTime) && !cached.isRacy()) {
+      hitCount.increment();
+      return cached.names;
+    }
+    missCount.increment();
+    final List<String> names = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(d)) {
+      for (Path entry : stream) {
+        names.add(entry.getFileName().toString());
+      }
+    } catch (IOException | DirectoryIteratorException ignored) {
+      // Glob ignores file system errors.
+      // Listing is not cached, so that the directory is read again next time
+      cache.invalidate(dir);
+      return EMPTY;
+    }
+    final String[] result = names.toArray(EMPTY);
+    Arrays.sort(result);
+    cache.put(dir, new Listing(modTime, readTime, result));
+    return result;
+  }
+}
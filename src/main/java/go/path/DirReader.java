@@ -0,0 +1,84 @@
+/*
+ * Directory reading for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import java.util.Arrays;
+
+/**
+ * Source of directory listings for glob.
+ *
+ * Implementations ignore file system errors such as I/O errors reading directories,
+ * as glob does.
+ */
+interface DirReader {
+  /**
+   * exists reports whether file named path exists.
+   * Symbolic links are not followed, so broken link exists too.
+   *
+   * @param path
+   * @return
+   */
+  boolean exists(String path);
+
+  /**
+   * readDirNames returns names of files in the directory dir matching pattern,
+   * sorted in lexicographical order.
+   * If the directory cannot be opened, it returns empty array.
+   *
+   * @param dir
+   * @param pattern
+   * @param dirsOnly whether caller needs only names which can be directories.
+   * It is a hint: implementation may skip names it knows are not directories
+   * without additional I/O, but is not required to
+   * @return
+   */
+  String[] readDirNames(String dir, CompiledPattern pattern, boolean dirsOnly);
+
+  /**
+   * readDirNames returns at most limit names of files in the directory dir matching pattern,
+   * the first ones in lexicographical order, sorted.
+   * Implementation may avoid sorting the names which are not returned.
+   *
+   * @param dir
+   * @param pattern
+   * @param dirsOnly
+   * @param limit
+   * @return
+   */
+  default String[] readDirNames(String dir, CompiledPattern pattern, boolean dirsOnly, int limit) {
+    final String[] names = readDirNames(dir, pattern, dirsOnly);
+    return names.length <= limit ? names : Arrays.copyOf(names, limit);
+  }
+
+  /**
+   * containsMatch reports whether the directory dir contains any file matching pattern.
+   * Implementation may stop reading the directory at the first such file.
+   *
+   * @param dir
+   * @param pattern
+   * @return
+   */
+  default boolean containsMatch(String dir, CompiledPattern pattern) {
+    return readDirNames(dir, pattern, false).length > 0;
+  }
+}
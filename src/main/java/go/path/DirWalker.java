@@ -0,0 +1,279 @@
+/*
+ * Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ * Copyright 2009 The Go Authors. All rights reserved.
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Implementation of {@link FilePath#walkDir} and {@link FilePath#walkDirConcurrent}.
+ */
+/*
+ * Source files:
+ * src/path/filepath/path.go (Go 1.16)
+ */
+final class DirWalker {
+  /**
+   * Converter of walked paths to {@link Path}
+   */
+  private final NioDirReader paths;
+  /**
+   * Executor to read directories in,
+   * or null if directories are read in the calling thread
+   */
+  private final Executor executor;
+
+  /**
+   * Maximum number of sibling directories read ahead of the one being walked
+   */
+  static final int PREFETCH = 16;
+
+  DirWalker(NioDirReader paths, Executor executor) {
+    this.paths = paths;
+    this.executor = executor;
+  }
+
+  private static final class PathDirEntry implements FilePath.DirEntry {
+    private final String name;
+    private final BasicFileAttributes info;
+
+    PathDirEntry(String name, BasicFileAttributes info) {
+      this.name = name;
+      this.info = info;
+    }
+
+    @Override
+    public String name() {
+      return name;
+    }
+
+    @Override
+    public boolean isDir() {
+      return info.isDirectory();
+    }
+
+    @Override
+    public BasicFileAttributes info() {
+      return info;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /**
+   * Result of readDir: entries which were read before the error, and the error
+   */
+  private static final class ReadDirResult {
+    final List<FilePath.DirEntry> entries;
+    final IOException err;
+
+    ReadDirResult(List<FilePath.DirEntry> entries, IOException err) {
+      this.entries = entries;
+      this.err = err;
+    }
+  }
+
+  private static final Comparator<FilePath.DirEntry> BY_NAME = Comparator.comparing(FilePath.DirEntry::name);
+
+  /**
+   * readDir reads the directory named by dirname and returns
+   * a sorted list of directory entries.
+   * If an error occurs reading the directory, it returns the entries
+   * it was able to read before the error, along with the error.
+   *
+   * @param dirname
+   * @return (entries, err)
+   */
+  private ReadDirResult readDir(String dirname) {
+    final List<FilePath.DirEntry> entries = new ArrayList<>();
+    IOException err = null;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(paths.getPath(dirname))) {
+      for (Path entry : stream) {
+        final BasicFileAttributes info;
+        try {
+          info = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException ignored) {
+          // File disappeared between readdir and lstat
+          continue;
+        }
+        entries.add(new PathDirEntry(entry.getFileName().toString(), info));
+      }
+    } catch (IOException e) {
+      err = e;
+    } catch (DirectoryIteratorException e) {
+      err = e.getCause();
+    } catch (InvalidPathException e) {
+      err = new IOException(e.getMessage(), e);
+    }
+    entries.sort(BY_NAME);
+    return new ReadDirResult(entries, err);
+  }
+
+  private CompletableFuture<ReadDirResult> readDirAsync(String dirname) {
+    return CompletableFuture.supplyAsync(() -> readDir(dirname), executor);
+  }
+
+  private static ReadDirResult join(CompletableFuture<ReadDirResult> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * See {@link FilePath#walkDir}
+   *
+   * @param root
+   * @param fn
+   * @throws IOException
+   */
+  void walkDir(String root, FilePath.WalkDirFunc fn) throws IOException {
+    try {
+      final Path rootPath;
+      final BasicFileAttributes info;
+      try {
+        rootPath = paths.getPath(root);
+        info = Files.readAttributes(rootPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      } catch (IOException err) {
+        fn.apply(root, null, err);
+        return;
+      } catch (InvalidPathException e) {
+        // Invalid path is reported as Lstat error, like any other one
+        fn.apply(root, null, new IOException(e.getMessage(), e));
+        return;
+      }
+      final Path name = rootPath.getFileName();
+      final FilePath.DirEntry d = new PathDirEntry(name != null ? name.toString() : root, info);
+      walkDir(root, d, fn, executor != null && d.isDir() ? readDirAsync(root) : null);
+    } catch (FilePath.SkipDir ignored) {
+      // Root is skipped
+    }
+  }
+
+  /**
+   * walkDir recursively descends path, calling walkDirFn.
+   *
+   * @param path
+   * @param d
+   * @param walkDirFn
+   * @param prefetched listing of path being read concurrently, or null
+   * @throws IOException
+   */
+  private void walkDir(String path, FilePath.DirEntry d, FilePath.WalkDirFunc walkDirFn, CompletableFuture<ReadDirResult> prefetched) throws IOException {
+    try {
+      walkDirFn.apply(path, d, null);
+    } catch (FilePath.SkipDir err) {
+      if (prefetched != null) {
+        prefetched.cancel(false);
+      }
+      if (d.isDir()) {
+        // Successfully skipped directory.
+        return;
+      }
+      throw err;
+    }
+    if (!d.isDir()) {
+      return;
+    }
+
+    final ReadDirResult readDirResult = prefetched != null ? join(prefetched) : readDir(path);
+    if (readDirResult.err != null) {
+      // Second call, to report ReadDir error.
+      try {
+        walkDirFn.apply(path, d, readDirResult.err);
+      } catch (FilePath.SkipDir err) {
+        // d is a directory here
+        return;
+      }
+    }
+
+    final List<FilePath.DirEntry> dirs = readDirResult.entries;
+    final int n = dirs.size();
+    @SuppressWarnings("unchecked")
+    final CompletableFuture<ReadDirResult>[] listings = new CompletableFuture[n];
+    // Index of the next sibling to read ahead
+    int next = 0;
+    // Number of siblings not walked yet which are being read ahead
+    int ahead = 0;
+    int i = 0;
+    try {
+      for (; i < n; i++) {
+        if (executor != null) {
+          // Read next sibling directories concurrently, at most PREFETCH at once,
+          // so that the number of listings held is bounded
+          for (; next < n && ahead < PREFETCH; next++) {
+            final FilePath.DirEntry d1 = dirs.get(next);
+            if (d1.isDir()) {
+              listings[next] = readDirAsync(FilePath.join(path, d1.name()));
+              ahead++;
+            }
+          }
+          if (listings[i] != null) {
+            ahead--;
+          }
+        }
+        final CompletableFuture<ReadDirResult> listing = listings[i];
+        // Don't hold the listing after its directory is walked
+        listings[i] = null;
+        final FilePath.DirEntry d1 = dirs.get(i);
+        final String path1 = FilePath.join(path, d1.name());
+        try {
+          walkDir(path1, d1, walkDirFn, listing);
+        } catch (FilePath.SkipDir err) {
+          break;
+        }
+      }
+    } finally {
+      for (i++; i < next; i++) {
+        if (listings[i] != null) {
+          listings[i].cancel(false);
+        }
+      }
+    }
+  }
+}
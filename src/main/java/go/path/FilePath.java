@@ -23,18 +23,31 @@
  */
 package go.path;
 
-import static go.Runtime.GoOS.*;
 import com.google.common.collect.ImmutableList;
 import go.Os;
-import go.Strings;
 import go.unicode.Utf16;
 import go.Runtime;
+import go.Runtime.GoOS;
 import org.apache.commons.lang3.StringUtils;
 import org.immutables.value.Value;
-import java.io.File;
-import java.io.FilenameFilter;
-import java.util.Arrays;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Go package {@code filepath} implements utility routines for manipulating filename paths
@@ -47,61 +60,146 @@ import java.util.List;
  */
 public final class FilePath {
   public static final char SEPARATOR = Os.PATH_SEPARATOR;
+  public static final char LIST_SEPARATOR = Os.PATH_LIST_SEPARATOR;
+
+  /**
+   * Paths of Unix-like systems, regardless of the current system.
+   * See {@link FilePathFlavor}
+   */
+  public static final FilePathFlavor UNIX = FilePathFlavor.UNIX;
+
+  /**
+   * Windows paths, regardless of the current system.
+   * See {@link FilePathFlavor}
+   */
+  public static final FilePathFlavor WINDOWS = FilePathFlavor.WINDOWS;
+
+  /*
+   * CAVEAT:
+   * Functions work with paths of the current system.
+   * Their implementations take windows flag, so that they serve flavors too.
+   * Static functions pass the constant below, so that the check is folded
+   * as it was when functions consulted Runtime.GOOS directly.
+   */
+  private static final boolean IS_WINDOWS = Runtime.GOOS == GoOS.WINDOWS;
+
+  static char separator(final boolean windows) {
+    return windows ? '\\' : '/';
+  }
+
+  static boolean isPathSeparator(final char c, final boolean windows) {
+    // NOTE: Windows accept / as path separator.
+    return c == '/' || windows && c == '\\';
+  }
 
   /**
    * A lazybuf is a lazily constructed path buffer.
    * It supports append, reading previously appended bytes,
    * and retrieving the final string. It does not allocate a buffer
    * to hold the output until that output diverges from s.
+   *
+   * Buffer holds volume name too, so that the final string is made with a single copy.
+   * Volume name is copied with slashes replaced by Separator.
    */
-  // TOTHINK: Javafy: add getAt, Iterable, toString ?
-  private static class Lazybuf {
+  private static final class Lazybuf {
+    private final CharSequence volAndPath;
+    private final int volLen;
+    private final char separator;
     private final int pathLen; // without volLen
-    private char[] buf = null;
+    private char[] buf; // with volLen
     public int w; // low, without volLen
-    private final String volAndPath;
-    private final int volLen;
 
-    public Lazybuf(String volAndPath, int volLen) {
+    /**
+     * @param volAndPath
+     * @param volLen
+     * @param separator
+     * @param buf buffer to write output to from the start, or null to allocate it on divergence
+     */
+    public Lazybuf(CharSequence volAndPath, int volLen, char separator, char[] buf) {
       this.volAndPath = volAndPath;
       this.volLen = volLen;
+      this.separator = separator;
       pathLen = volAndPath.length() - volLen;
       w = 0;
+      if (buf != null) {
+        diverge(buf);
+      } else if (separator != '/' && indexOf(volAndPath, '/', 0, volLen) != -1) {
+        diverge(new char[volLen + Math.max(pathLen, 1)]);
+      }
     }
 
-    private char pathChar(int i) {
-      return volAndPath.charAt(volLen + i);
+    private void diverge(char[] buf) {
+      getChars(volAndPath, 0, volLen + w, buf, 0);
+      if (separator != '/') {
+        for (int i = 0; i < volLen; i++) {
+          if (buf[i] == '/') {
+            buf[i] = separator;
+          }
+        }
+      }
+      this.buf = buf;
     }
 
     public char index(int i) {
       if (buf != null) {
-        return buf[i];
+        return buf[volLen + i];
       }
-      return pathChar(i);
+      return volAndPath.charAt(volLen + i);
     }
 
     public void append(char c) {
       if (buf == null) {
-        if (w < pathLen && pathChar(w) == c) {
+        if (w < pathLen && volAndPath.charAt(volLen + w) == c) {
           w++;
           return;
         }
-        buf = new char[pathLen];
-        System.arraycopy(volAndPath.toCharArray(), volLen, buf, 0, w); // TODO !!!
+        // Output is never longer than path, except "." appended to empty path
+        diverge(new char[volLen + Math.max(pathLen, 1)]);
       }
-      buf[w] = c;
+      buf[volLen + w] = c;
       w++;
     }
 
+    public int length() {
+      return volLen + w;
+    }
+
     public String string() {
       if (buf == null) {
-        return volAndPath.substring(0, volLen + w);
+        return volAndPath.subSequence(0, volLen + w).toString();
+      }
+      return new String(buf, 0, volLen + w);
+    }
+
+    public void appendTo(Appendable out) throws IOException {
+      if (buf == null) {
+        out.append(volAndPath, 0, volLen + w);
+      } else {
+        out.append(CharBuffer.wrap(buf, 0, volLen + w));
+      }
+    }
+  }
+
+  private static int indexOf(CharSequence s, char c, int low, int high) {
+    for (int i = low; i < high; i++) {
+      if (s.charAt(i) == c) {
+        return i;
       }
-      // return volAndPath.substring(0, volLen) + string(buf, 0, w);
-      char[] result = new char[volLen + w];
-      System.arraycopy(volAndPath.toCharArray(), 0, result, 0, volLen); // TODO !!!
-      System.arraycopy(buf, 0, result, volLen, w);
-      return new String(result);
+    }
+    return -1;
+  }
+
+  /**
+   * getChars copies characters from s into dst, like {@link String#getChars}.
+   * Copying is done in forward order, so dst may overlap s if dstBegin &lt;= srcBegin
+   */
+  private static void getChars(CharSequence s, int srcBegin, int srcEnd, char[] dst, int dstBegin) {
+    if (s instanceof String) {
+      ((String)s).getChars(srcBegin, srcEnd, dst, dstBegin);
+      return;
+    }
+    for (int i = srcBegin; i < srcEnd; i++) {
+      dst[dstBegin++] = s.charAt(i);
     }
   }
 
@@ -129,29 +227,251 @@ public final class FilePath {
    * See also Rob Pike, ``Lexical File Names in Plan 9 or
    * Getting Dot-Dot Right,''
    * https://9p.io/sys/doc/lexnames.html
+   *
+   * If path is already clean, it is returned as is, without allocation.
+   * See {@link #isClean}
    */
   public static String clean(final String path) {
-    final int volLen = volumeNameLen(path);
+    return clean(path, IS_WINDOWS);
+  }
+
+  static String clean(final String path, final boolean windows) {
+    if (isClean(path, windows)) {
+      return path;
+    }
+    return cleanLazy(path, null, windows).string();
+  }
+
+  /**
+   * isClean reports whether path is already clean,
+   * i.e. {@link #clean(String)} returns it unchanged.
+   *
+   * It scans path once and doesn't allocate,
+   * so it is cheaper than comparing path with the result of clean.
+   *
+   * @param path
+   * @return
+   */
+  public static boolean isClean(final CharSequence path) {
+    return isClean(path, IS_WINDOWS);
+  }
+
+  static boolean isClean(final CharSequence path, final boolean windows) {
+    final char separator = separator(windows);
+    final int n = path.length();
+    final int volLen = volumeNameLen(path, n, windows);
+    // Slashes in volume name are replaced by Separator
+    if (windows && indexOf(path, '/', 0, volLen) != -1) {
+      return false;
+    }
+    int r = volLen;
+    if (r >= n) {
+      // "." is appended to empty path, but not to UNC volume name
+      return volLen > 1 && path.charAt(1) != ':';
+    }
+    final boolean rooted = isPathSeparator(path.charAt(r), windows);
+    if (rooted) {
+      if (path.charAt(r) != separator) {
+        return false;
+      }
+      r++;
+      if (r == n) {
+        return true;
+      }
+    }
+    // .. elements are clean only as a leading ../../.. prefix of unrooted path
+    boolean dotdot = !rooted;
+    while (true) {
+      final int low = r;
+      while (r < n && !isPathSeparator(path.charAt(r), windows)) {
+        r++;
+      }
+      if (r == low) {
+        // empty path element, either doubled or trailing separator
+        return false;
+      }
+      if (path.charAt(low) == '.' && r == low + 1) {
+        // . element is clean only as the whole path after volume name
+        if (low != volLen || r != n) {
+          return false;
+        }
+      } else if (path.charAt(low) == '.' && r == low + 2 && path.charAt(low + 1) == '.') {
+        if (!dotdot) {
+          return false;
+        }
+      } else {
+        dotdot = false;
+      }
+      if (r == n) {
+        return true;
+      }
+      if (path.charAt(r) != separator) {
+        return false;
+      }
+      r++;
+    }
+  }
+
+  /**
+   * clean is like {@link #clean(String)},
+   * but appends the result to out instead of returning a new String.
+   *
+   * @param path
+   * @param out
+   * @throws IOException if out throws it
+   */
+  public static void clean(final CharSequence path, final Appendable out) throws IOException {
+    if (isClean(path, IS_WINDOWS)) {
+      out.append(path);
+      return;
+    }
+    cleanLazy(path, null, IS_WINDOWS).appendTo(out);
+  }
+
+  /**
+   * clean is like {@link #clean(String)},
+   * but reads path from {@code src[srcOff, srcOff + len)} and writes the result to dst, starting from index 0.
+   *
+   * dst may be the same array as src, then path is cleaned in place.
+   *
+   * @param src
+   * @param srcOff
+   * @param len
+   * @param dst buffer of at least {@code len + 1} chars
+   * @return length of the result
+   */
+  public static int clean(final char[] src, final int srcOff, final int len, final char[] dst) {
+    return clean(src, srcOff, len, dst, IS_WINDOWS);
+  }
+
+  static int clean(final char[] src, final int srcOff, final int len, final char[] dst, final boolean windows) {
+    if (dst.length < len + 1) {
+      throw new IndexOutOfBoundsException("dst is too short: " + dst.length);
+    }
+    final CharBuffer path = CharBuffer.wrap(src, srcOff, len);
+    if (isClean(path, windows)) {
+      if (src != dst || srcOff != 0) {
+        System.arraycopy(src, srcOff, dst, 0, len);
+      }
+      return len;
+    }
+    return cleanLazy(path, dst, windows).length();
+  }
+
+  /**
+   * clean is like {@link #clean(String)}, but works with UTF-8 bytes.
+   *
+   * @param path
+   * @return cleaned path. If path is already clean, path itself is returned
+   */
+  public static byte[] clean(final byte[] path) {
+    return FilePathBytes.toArray(FilePathBytes.clean(ByteBuffer.wrap(path)));
+  }
+
+  /**
+   * clean is like {@link #clean(String)}, but works with UTF-8 bytes
+   * between position and limit of path.
+   *
+   * @param path
+   * @return cleaned path. If path is already clean, the result shares content with path
+   */
+  public static ByteBuffer clean(final ByteBuffer path) {
+    return FilePathBytes.clean(path);
+  }
+
+  /**
+   * clean is like {@link #clean(String, boolean)}, but path is known not to be clean
+   * and the result is built in scratch.
+   *
+   * @param path
+   * @param scratch buffer of at least {@code path.length() + 1} chars
+   * @param windows
+   * @return
+   */
+  static String clean(final String path, final char[] scratch, final boolean windows) {
+    return new String(scratch, 0, cleanLazy(path, scratch, windows).length());
+  }
+
+  /**
+   * cleanAll cleans each path of in, like {@link #clean(String)},
+   * and stores the result to out at the same index.
+   * Batches larger than a few thousands of paths are split
+   * across {@link ForkJoinPool#commonPool()}.
+   *
+   * See {@link #cleanAll(String[], String[], ForkJoinPool)}
+   *
+   * @param in
+   * @param out array at least as long as in. It could be in itself
+   */
+  public static void cleanAll(final String[] in, final String[] out) {
+    cleanAll(in, out, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * cleanAll cleans each path of in, like {@link #clean(String)},
+   * and stores the result to out at the same index.
+   *
+   * Paths which are already clean are stored as is.
+   * Other paths are cleaned in a buffer reused by the thread,
+   * so the resulting String is the only allocation per path.
+   * Batches larger than a few thousands of paths are split in halves
+   * and cleaned in pool.
+   *
+   * @param in
+   * @param out array at least as long as in. It could be in itself
+   * @param pool
+   * @throws IndexOutOfBoundsException if out is shorter than in
+   */
+  public static void cleanAll(final String[] in, final String[] out, final ForkJoinPool pool) {
+    BulkClean.cleanAll(in, out, pool, IS_WINDOWS);
+  }
+
+  /**
+   * cleanAll returns a stream of paths cleaned like {@link #clean(String)}.
+   *
+   * Paths which are already clean are passed through as is.
+   * Other paths are cleaned in a buffer reused by the thread.
+   * The stream is split across threads when paths is parallel.
+   *
+   * @param paths
+   * @return
+   */
+  public static Stream<String> cleanAll(final Stream<String> paths) {
+    return BulkClean.cleanAll(paths, IS_WINDOWS);
+  }
+
+  /**
+   * cleanLazy implements all variants of {@link #clean(String)}
+   *
+   * @param path
+   * @param dst buffer to write the result to, or null to allocate it only if the result diverges from path
+   * @param windows
+   * @return
+   */
+  private static Lazybuf cleanLazy(final CharSequence path, final char[] dst, final boolean windows) {
+    final char separator = separator(windows);
+    final int volLen = volumeNameLen(path, path.length(), windows);
     int r = volLen; // pathLow
     final int n = path.length(); // pathLen
     if (r >= n) {
-      if (volLen > 1 && path.charAt(1) != ':') {
-        // should be UNC
-        return fromSlash(path);
+      final boolean unc = volLen > 1 && path.charAt(1) != ':';
+      final Lazybuf out = new Lazybuf(path, volLen, separator, dst);
+      if (!unc) {
+        out.append('.');
       }
-      return path + ".";
+      return out;
     }
-    final boolean rooted = Os.isPathSeparator(path.charAt(r));
+    final boolean rooted = isPathSeparator(path.charAt(r), windows);
 
     // Invariants:
     //	reading from path; r is index of next char to process.
     //	writing to buf; w is index of next byte to write.
     //	dotdot is index in buf where .. must stop, either because
     //		it is the leading slash or it is a leading ../../.. prefix.
-    final Lazybuf out = new Lazybuf(path, volLen);
+    final Lazybuf out = new Lazybuf(path, volLen, separator, dst);
     int dotdot;
     if (rooted) {
-      out.append(SEPARATOR);
+      out.append(separator);
       r++;
       dotdot = 1;
     } else {
@@ -159,25 +479,25 @@ public final class FilePath {
     }
 
     while (r < n) {
-      if (Os.isPathSeparator(path.charAt(r))) {
+      if (isPathSeparator(path.charAt(r), windows)) {
         // empty path element
         r++;
-      } else if (path.charAt(r) == '.' && (r + 1 == n || Os.isPathSeparator(path.charAt(r + 1)))) {
+      } else if (path.charAt(r) == '.' && (r + 1 == n || isPathSeparator(path.charAt(r + 1), windows))) {
         // . element
         r++;
-      } else if (path.charAt(r) == '.' && path.charAt(r + 1) == '.' && (r + 2 == n || Os.isPathSeparator(path.charAt(r + 2)))) {
+      } else if (path.charAt(r) == '.' && path.charAt(r + 1) == '.' && (r + 2 == n || isPathSeparator(path.charAt(r + 2), windows))) {
         // .. element: remove to last separator
         r += 2;
         if (out.w > dotdot) {
           // can backtrack
           out.w--;
-          while (out.w > dotdot && !Os.isPathSeparator(out.index(out.w))) {
+          while (out.w > dotdot && !isPathSeparator(out.index(out.w), windows)) {
             out.w--;
           }
         } else if (!rooted) {
           // cannot backtrack, but not rooted, so append .. element.
           if (out.w > 0) {
-            out.append(SEPARATOR);
+            out.append(separator);
           }
           out.append('.');
           out.append('.');
@@ -187,10 +507,10 @@ public final class FilePath {
         // real path element.
         // add slash if needed
         if (rooted && out.w != 1 || !rooted && out.w != 0) {
-          out.append(SEPARATOR);
+          out.append(separator);
         }
         // copy element
-        for (; r < n && !Os.isPathSeparator(path.charAt(r)); r++) {
+        for (; r < n && !isPathSeparator(path.charAt(r), windows); r++) {
           out.append(path.charAt(r));
         }
       }
@@ -201,7 +521,9 @@ public final class FilePath {
       out.append('.');
     }
 
-    return fromSlash(out.string());
+    // Slashes are already replaced by Separator:
+    // appended separators are always Separator, and Lazybuf replaces slashes in volume name
+    return out;
   }
 
   /**
@@ -213,11 +535,14 @@ public final class FilePath {
    * @return
    */
   public static String toSlash(String path) {
-    if (SEPARATOR == '/') {
+    return toSlash(path, IS_WINDOWS);
+  }
+
+  static String toSlash(String path, boolean windows) {
+    if (!windows) {
       return path;
     }
-    // TODO: replace over char array would be more efficient
-    return StringUtils.replace(path, String.valueOf(SEPARATOR), "/", -1);
+    return path.replace('\\', '/');
   }
 
   /**
@@ -226,11 +551,14 @@ public final class FilePath {
    * by multiple separators.
    */
   public static String fromSlash(String path) {
-    if (SEPARATOR == '/') {
+    return fromSlash(path, IS_WINDOWS);
+  }
+
+  static String fromSlash(String path, boolean windows) {
+    if (!windows) {
       return path;
     }
-    // TODO: replace over char array would be more efficient
-    return StringUtils.replace(path, "/", String.valueOf(SEPARATOR), -1);
+    return path.replace('/', '\\');
   }
 
   public static class ErrBadPattern extends /*PatternSyntaxException*/ IllegalArgumentException {
@@ -272,40 +600,41 @@ public final class FilePath {
    * @return
    */
   public static boolean match(final String pattern, final String name) {
+    return match(pattern, name, IS_WINDOWS);
+  }
+
+  static boolean match(final String pattern, final String name, final boolean windows) {
+    final char separator = separator(windows);
     int patternLow = 0;
     int nameLow = 0;
     final int patternHigh = pattern.length();
     final int nameHigh = name.length();
     pattern:
     while (patternLow < patternHigh) {
-      final ScanChunkResult scanChunkResult = scanChunk(pattern, patternLow);
-      final boolean star = scanChunkResult.getStar();
-      final int chunkLow = scanChunkResult.getChunkLow();
-      final int chunkHigh = scanChunkResult.getChunkHigh();
+      final long scanChunkResult = scanChunk(pattern, patternLow, windows);
+      final int chunkLow = chunkLow(scanChunkResult);
+      final int chunkHigh = chunkHigh(scanChunkResult);
+      final boolean star = chunkLow > patternLow;
       if (star && chunkLow == chunkHigh) {
         // Trailing * matches rest of string unless it has a /.
-        return name.indexOf(SEPARATOR, nameLow) == -1;
+        return name.indexOf(separator, nameLow) == -1;
       }
-      patternLow = scanChunkResult.getRestLow();
+      patternLow = chunkHigh; // rest
       // Look for match at current position.
-      MatchChunkResult matchChunkResult = matchChunk(pattern, chunkLow, chunkHigh, name, nameLow);
-      int t = matchChunkResult.getRestLow();
-      boolean ok = matchChunkResult.getOk();
+      int t = matchChunk(pattern, chunkLow, chunkHigh, name, nameLow, windows);
       // if we're the last chunk, make sure we've exhausted the name
       // otherwise we'll give a false result even if we could still match
       // using the star
-      if (ok && (t == nameHigh || patternLow < patternHigh)) {
+      if (t >= 0 && (t == nameHigh || patternLow < patternHigh)) {
         nameLow = t;
         continue;
       }
       if (star) {
         // Look for match skipping i+1 bytes.
         // Cannot skip /.
-        for (int i = nameLow; i < nameHigh && name.charAt(i) != SEPARATOR; i++) {
-          matchChunkResult = matchChunk(pattern, chunkLow, chunkHigh, name, i + 1);
-          t = matchChunkResult.getRestLow();
-          ok = matchChunkResult.getOk();
-          if (ok) {
+        for (int i = nameLow; i < nameHigh && name.charAt(i) != separator; i++) {
+          t = matchChunk(pattern, chunkLow, chunkHigh, name, i + 1, windows);
+          if (t >= 0) {
             // if we're the last chunk, make sure we exhausted the name
             if (patternLow == patternHigh && t < nameHigh) {
               continue;
@@ -320,17 +649,107 @@ public final class FilePath {
     return nameLow == nameHigh;
   }
 
-  @Value.Immutable(builder = false)
-  abstract static class ScanChunkResult {
-    @Value.Parameter
-    public abstract boolean getStar();
-    @Value.Parameter
-    public abstract int getChunkLow();
-    @Value.Parameter
-    public abstract int getChunkHigh();
-    public final int getRestLow() {
-      return getChunkHigh();
-    };
+  /**
+   * match is like {@link #match(String, String)}, but works with UTF-8 bytes.
+   *
+   * @param pattern
+   * @param name
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static boolean match(final byte[] pattern, final byte[] name) {
+    return FilePathBytes.match(ByteBuffer.wrap(pattern), ByteBuffer.wrap(name));
+  }
+
+  /**
+   * match is like {@link #match(String, String)}, but works with UTF-8 bytes
+   * between position and limit of pattern and name.
+   *
+   * @param pattern
+   * @param name
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static boolean match(final ByteBuffer pattern, final ByteBuffer name) {
+    return FilePathBytes.match(pattern, name);
+  }
+
+  /**
+   * compile parses a shell file name pattern, with the same syntax as in {@link #match},
+   * so that it can be matched against many names without parsing it again.
+   *
+   * Unlike {@link #match}, the whole pattern is validated up front.
+   *
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static CompiledPattern compile(final String pattern) {
+    return CompiledPattern.compile(pattern, IS_WINDOWS);
+  }
+
+  /**
+   * Syntax of {@link #match} patterns for {@link #getPathMatcher}
+   */
+  public static final String PATH_MATCHER_SYNTAX = "goglob";
+
+  /**
+   * getPathMatcher returns {@link PathMatcher} with the same contract as
+   * {@link FileSystem#getPathMatcher}, that additionally supports
+   * {@value #PATH_MATCHER_SYNTAX} syntax, with patterns accepted by {@link #match}.
+   * Other syntaxes are delegated to the default file system.
+   *
+   * Pattern is compiled once, as by {@link #compile}.
+   * Pattern without Separator is matched against the file name of path,
+   * otherwise it is matched against the whole path.
+   *
+   * CAVEAT:
+   * {@link FileSystems#getDefault()} can't be extended with new syntaxes,
+   * so {@code FileSystems.getDefault().getPathMatcher("goglob:*.log")}
+   * is not supported.
+   *
+   * @param syntaxAndPattern
+   * @return
+   * @throws IllegalArgumentException if the parameter does not take the form: syntax:pattern
+   * @throws ErrBadPattern
+   * @throws java.util.regex.PatternSyntaxException if other syntax pattern is invalid
+   * @throws UnsupportedOperationException if the pattern syntax is not known
+   */
+  public static PathMatcher getPathMatcher(String syntaxAndPattern) {
+    final int i = syntaxAndPattern.indexOf(':');
+    if (i == PATH_MATCHER_SYNTAX.length() && syntaxAndPattern.regionMatches(true, 0, PATH_MATCHER_SYNTAX, 0, i)) {
+      return new GlobPathMatcher(syntaxAndPattern.substring(i + 1));
+    }
+    return FileSystems.getDefault().getPathMatcher(syntaxAndPattern);
+  }
+
+  /*
+   * CAVEAT:
+   * Go functions scanChunk and getEsc return tuples.
+   * To keep match allocation-free, these tuples are packed into long:
+   * first element in high 32 bits, second one in low 32 bits.
+   * Star flag of scanChunk is not packed: there is a star
+   * if and only if chunkLow is greater than index scanning started from.
+   */
+
+  static long pack(final int high, final int low) {
+    return (long)high << 32 | low & 0xFFFFFFFFL;
+  }
+
+  static int chunkLow(final long scanChunkResult) {
+    return (int)(scanChunkResult >>> 32);
+  }
+
+  static int chunkHigh(final long scanChunkResult) {
+    return (int)scanChunkResult;
+  }
+
+  static int escR(final long getEscResult) {
+    return (int)(getEscResult >>> 32);
+  }
+
+  static int escNChunkLow(final long getEscResult) {
+    return (int)getEscResult;
   }
 
   /**
@@ -338,14 +757,13 @@ public final class FilePath {
    * possibly preceded by a star.
    *
    * @param pattern
-   * @return Tuple of (star, chunk, rest)
+   * @param windows
+   * @return (chunkLow, chunkHigh) packed into long. Rest starts at chunkHigh
    */
-  private static ScanChunkResult scanChunk(final String pattern, int chunkLow) {
+  static long scanChunk(final String pattern, int chunkLow, final boolean windows) {
     final int patternHigh = pattern.length();
-    boolean star = false;
     while (chunkLow < patternHigh && pattern.charAt(chunkLow) == '*') {
       chunkLow++;
-      star = true;
     }
     boolean inrange = false;
     int i;
@@ -353,7 +771,7 @@ public final class FilePath {
     for (i = chunkLow; i < patternHigh; i++) {
       switch (pattern.charAt(i)) {
         case '\\':
-          if (Runtime.GOOS != WINDOWS) {
+          if (!windows) {
             // error check handled in matchChunk: bad pattern.
             if (i + 1 < patternHigh) {
               i++;
@@ -373,15 +791,7 @@ public final class FilePath {
           break;
       }
     }
-    return ImmutableScanChunkResult.of(star, chunkLow, i);
-  }
-
-  @Value.Immutable(builder = false)
-  abstract static class MatchChunkResult {
-    @Value.Parameter
-    public abstract int getRestLow();
-    @Value.Parameter
-    public abstract boolean getOk();
+    return pack(chunkLow, i);
   }
 
   /**
@@ -391,28 +801,22 @@ public final class FilePath {
    *
    * @param chunk
    * @param s
-   * @return Tuple of (rest, ok)
+   * @param windows
+   * @return index of the remainder of s, or -1 if there is no match
    * @throws ErrBadPattern
    */
-  private static MatchChunkResult matchChunk(final String chunk, int chunkLow, final int chunkHigh, final String s, int sLow) {
+  private static int matchChunk(final String chunk, int chunkLow, final int chunkHigh, final String s, int sLow, final boolean windows) {
     final int sHigh = s.length();
-    Utf16.DecodeRuneInStringResult decodeRuneInStringResult;
-    int n;
-    boolean ok = true;
-    // TOTHINK: put ok check in while condition
-    return_loop:
+    int r;
     while (chunkLow < chunkHigh) {
       if (sLow == sHigh) {
-        ok = false;
-        break return_loop;
+        return -1;
       }
       switch (chunk.charAt(chunkLow)) {
         case '[':
           // character class
-          decodeRuneInStringResult = Utf16.decodeRuneInString(s, sLow);
-          int r = decodeRuneInStringResult.getR();
-          n = decodeRuneInStringResult.getSize();
-          sLow += n;
+          r = Utf16.decodeRuneAt(s, sLow);
+          sLow += Character.charCount(r);
           chunkLow++;
           // We can't end right after '[', we're expecting at least
           // a closing bracket and possibly a caret.
@@ -434,13 +838,13 @@ public final class FilePath {
             }
             final int lo;
             final int hi;
-            GetEscResult getEscResult = getEsc(chunk, chunkLow, chunkHigh);
-            lo = getEscResult.getR();
-            chunkLow = getEscResult.getNChunkLow();
+            long getEscResult = getEsc(chunk, chunkLow, chunkHigh, windows);
+            lo = escR(getEscResult);
+            chunkLow = escNChunkLow(getEscResult);
             if (chunk.charAt(chunkLow) == '-') {
-              getEscResult = getEsc(chunk, chunkLow + 1, chunkHigh);
-              hi = getEscResult.getR();
-              chunkLow = getEscResult.getNChunkLow();
+              getEscResult = getEsc(chunk, chunkLow + 1, chunkHigh, windows);
+              hi = escR(getEscResult);
+              chunkLow = escNChunkLow(getEscResult);
             } else {
               hi = lo;
             }
@@ -450,23 +854,20 @@ public final class FilePath {
             nrange++;
           }
           if (match == negated) {
-            ok = false;
-            break return_loop;
+            return -1;
           }
           break;
 
         case '?':
-          if (s.charAt(sLow) == SEPARATOR) {
-            ok = false;
-            break return_loop;
+          if (s.charAt(sLow) == separator(windows)) {
+            return -1;
           }
-          n = Utf16.decodeRuneInString(s, sLow).getSize();
-          sLow += n;
+          sLow += Character.charCount(Utf16.decodeRuneAt(s, sLow));
           chunkLow++;
           break;
 
         case '\\':
-          if (Runtime.GOOS != WINDOWS) {
+          if (!windows) {
             chunkLow++;
             if (chunkLow == chunkHigh) {
               throw new ErrBadPattern();
@@ -476,22 +877,13 @@ public final class FilePath {
 
         default:
           if (chunk.charAt(chunkLow) != s.charAt(sLow)) {
-            ok = false;
-            break return_loop;
+            return -1;
           }
           sLow++;
           chunkLow++;
       }
-    } // TODO: Ok is not needed?
-    return ImmutableMatchChunkResult.of(sLow, ok);
-  }
-
-  @Value.Immutable(builder = false)
-  abstract static class GetEscResult {
-    @Value.Parameter
-    public abstract int getR();
-    @Value.Parameter
-    public abstract int getNChunkLow();
+    }
+    return sLow;
   }
 
   /**
@@ -502,30 +894,31 @@ public final class FilePath {
    * @param chunk
    * @param chunkLow
    * @param chunkHigh
-   * @return (r, nchunk)
+   * @param windows
+   * @return (r, nchunk) packed into long
    * @throws ErrBadPattern
    */
-  private static GetEscResult getEsc(final String chunk, int chunkLow, final int chunkHigh) {
+  static long getEsc(final String chunk, int chunkLow, final int chunkHigh, final boolean windows) {
     if (chunkLow >= chunkHigh || chunk.charAt(chunkLow) == '-' || chunk.charAt(chunkLow) == ']') {
       throw new ErrBadPattern();
     }
-    if (chunk.charAt(chunkLow) == '\\' && Runtime.GOOS != WINDOWS) {
+    if (chunk.charAt(chunkLow) == '\\' && !windows) {
       chunkLow++;
       if (chunkLow >= chunkHigh) {
         throw new ErrBadPattern();
       }
     }
-    Utf16.DecodeRuneInStringResult decodeRuneInStringResult;
+    final int r;
     try {
-      decodeRuneInStringResult = Utf16.decodeRuneInString(chunk, chunkLow);
+      r = Utf16.decodeRuneAt(chunk, chunkLow);
     } catch (Utf16.RuneError e) {
       throw new ErrBadPattern(e);
     }
-    chunkLow += decodeRuneInStringResult.getSize();
+    chunkLow += Character.charCount(r);
     if (chunkLow >= chunkHigh) {
       throw new ErrBadPattern();
     }
-    return ImmutableGetEscResult.of(decodeRuneInStringResult.getR(), chunkLow);
+    return pack(r, chunkLow);
   }
 
   /**
@@ -538,6 +931,10 @@ public final class FilePath {
    * The only possible returned error is ErrBadPattern, when pattern
    * is malformed.
    *
+   * CAVEAT:
+   * File name part of the pattern is validated up front,
+   * as Go does since 1.16.
+   *
    * @param pattern
    * @return
    * @throws ErrBadPattern
@@ -545,54 +942,333 @@ public final class FilePath {
    * and its SecurityManager.checkRead(String) method denies read access to the directory
    */
   public static List<String> glob(String pattern) {
-    if (!hasMeta(pattern)) {
-      // Pure Java implementation
-      if (!new File(pattern).exists()) {
-        return null;
-      }
-      return ImmutableList.of(pattern);
-    }
-
-    SplitResult splitResult = split(pattern);
-    String dir = splitResult.getDir();
-    String file = splitResult.getFile();
-    int volumeLen;
-    if (Runtime.GOOS == WINDOWS) {
-      CleanGlobPathWindowsResult cleanGlobPathWindowsResult = cleanGlobPathWindows(dir);
-      volumeLen = cleanGlobPathWindowsResult.getPrefixLen();
-      dir = cleanGlobPathWindowsResult.getCleaned();
-    } else {
-      volumeLen = 0;
-      dir = cleanGlobPath(dir);
-    }
-
-    ImmutableList.Builder<String> matches = ImmutableList.builder();
+    return glob(pattern, NioDirReader.DEFAULT);
+  }
 
-    if (!hasMeta(dir.substring(volumeLen))) {
-      glob(dir, file, matches);
-      return matches.build();
-    }
+  /**
+   * glob is like {@link #glob(String)},
+   * but reuses directory listings from cache while directories are not modified.
+   *
+   * @param pattern
+   * @param cache
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static List<String> glob(String pattern, DirListingCache cache) {
+    return glob(pattern, cache.dirReader());
+  }
 
-    // Prevent infinite recursion. See issue 15879.
-    if (dir == pattern) {
-      throw new ErrBadPattern();
+  /**
+   * glob returns the first limit names of all files matching pattern,
+   * in the same order as {@link #glob(String)}, or nil if there is no matching file.
+   *
+   * Directories are not read after limit names are found,
+   * and only the names to be returned are sorted.
+   *
+   * @param pattern
+   * @param limit
+   * @return
+   * @throws ErrBadPattern
+   * @throws IllegalArgumentException if limit is not positive
+   */
+  public static List<String> glob(String pattern, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit is not positive: " + limit);
     }
-
-    List<String> m = glob(dir);
-    for (String d: m) {
-      glob(d, file, matches);
+    if (!hasMeta(pattern)) {
+      return glob(pattern, NioDirReader.DEFAULT);
     }
-    return matches.build();
+    return ImmutableList.copyOf(GlobIterator.create(pattern, NioDirReader.DEFAULT, limit));
   }
 
   /**
-   * cleanGlobPath prepares path for glob matching.
+   * globFirst returns the first name which {@link #glob(String)} would return,
+   * or nil if there is no matching file.
+   * See {@link #glob(String, int)}.
    *
-   * @param path
+   * @param pattern
    * @return
+   * @throws ErrBadPattern
    */
-  private static String cleanGlobPath(String path) {
-    if (path.isEmpty()) {
+  public static String globFirst(String pattern) {
+    final Iterator<String> matches = GlobIterator.create(pattern, NioDirReader.DEFAULT, 1);
+    return matches.hasNext() ? matches.next() : null;
+  }
+
+  /**
+   * globExists reports whether any file matches pattern.
+   *
+   * Directories matched by the directory part of the pattern are found as by {@link #glob(String)}:
+   * directories leading to them are read fully and their names are sorted.
+   * Each directory matched by the directory part, though, is read only until the first name
+   * matching the file name part, without sorting names.
+   *
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static boolean globExists(String pattern) {
+    return GlobIterator.exists(pattern, NioDirReader.DEFAULT);
+  }
+
+  /**
+   * glob is like {@link #glob(String)}, but reads directories of fileSystem,
+   * like ZIP file system or in-memory one.
+   *
+   * Pattern and returned names use {@link #SEPARATOR}.
+   * They are converted to the separator of fileSystem when it differs.
+   *
+   * @param fileSystem
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static List<String> glob(FileSystem fileSystem, String pattern) {
+    return glob(pattern, new NioDirReader(fileSystem));
+  }
+
+  /**
+   * glob is like {@link #glob(FileSystem, String)}, but relative pattern
+   * is resolved against root directory.
+   * Returned names are relative to root then.
+   *
+   * Glob doesn't go outside of root: absolute patterns, and names with {@code ..}
+   * going above root, match nothing. Symbolic links are followed though,
+   * so they can lead outside of root.
+   *
+   * @param root
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static List<String> glob(Path root, String pattern) {
+    return glob(pattern, new NioDirReader(root));
+  }
+
+  static List<String> glob(String pattern, DirReader reader) {
+    if (!hasMeta(pattern)) {
+      if (!reader.exists(pattern)) {
+        return null;
+      }
+      return ImmutableList.of(pattern);
+    }
+    return ImmutableList.copyOf(GlobIterator.create(pattern, reader));
+  }
+
+  /**
+   * globPathList is like {@link #glob(String)},
+   * but returns the names in compact {@link PathList}.
+   * Names are added to the list as directories are read,
+   * without intermediate list of Strings.
+   * If there is no matching file, returned list is empty.
+   *
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   * @throws SecurityException - If a security manager exists
+   * and its SecurityManager.checkRead(String) method denies read access to the directory
+   */
+  public static PathList globPathList(String pattern) {
+    return PathList.builder().addAll(GlobIterator.create(pattern, NioDirReader.DEFAULT)).build();
+  }
+
+  /**
+   * globParallel is like {@link #glob(String)},
+   * but reads directories matched by the directory part of the pattern
+   * concurrently, in {@link ForkJoinPool#commonPool()}.
+   * Result is the same as of {@link #glob(String)}.
+   *
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static List<String> globParallel(String pattern) {
+    return globParallel(pattern, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * globParallel is like {@link #glob(String)},
+   * but reads directories matched by the directory part of the pattern
+   * concurrently, in executor.
+   * Result is the same as of {@link #glob(String)}.
+   *
+   * @param pattern
+   * @param executor
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static List<String> globParallel(String pattern, Executor executor) {
+    return ParallelGlob.glob(pattern, NioDirReader.DEFAULT, executor);
+  }
+
+  /**
+   * globAsync is like {@link #glob(String)}, but runs asynchronously,
+   * on virtual threads where available
+   * or in a dedicated bounded pool of daemon threads otherwise.
+   * See {@link #globAsync(String, Executor)}.
+   *
+   * @param pattern
+   * @return
+   */
+  public static CompletableFuture<List<String>> globAsync(String pattern) {
+    return globAsync(pattern, DefaultExecutor.INSTANCE);
+  }
+
+  /**
+   * globAsync is like {@link #glob(String)}, but runs asynchronously in executor.
+   *
+   * Returned future can be cancelled. Then directories which are not read yet
+   * are not read at all. Reading of the current directory is not interrupted.
+   *
+   * If pattern is malformed, future is completed exceptionally with ErrBadPattern.
+   * If executor rejects the task, future is completed exceptionally
+   * with {@link RejectedExecutionException}.
+   *
+   * @param pattern
+   * @param executor
+   * @return
+   */
+  public static CompletableFuture<List<String>> globAsync(String pattern, Executor executor) {
+    return globAsync(pattern, NioDirReader.DEFAULT, executor);
+  }
+
+  static CompletableFuture<List<String>> globAsync(String pattern, DirReader reader, Executor executor) {
+    final CompletableFuture<List<String>> result = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        if (result.isDone()) {
+          return;
+        }
+        try {
+          if (!hasMeta(pattern)) {
+            result.complete(glob(pattern, reader));
+            return;
+          }
+          // Cancellation is checked before each directory is read
+          result.complete(ImmutableList.copyOf(GlobIterator.create(pattern, reader, result::isDone)));
+        } catch (RuntimeException | Error e) {
+          result.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * globIterator is lazy version of {@link #glob(String)}.
+   * It returns the names of all files matching pattern in the same order,
+   * but reads directories only when the previous ones are exhausted.
+   * If there is no matching file, returned iterator is empty.
+   *
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   * @throws SecurityException - If a security manager exists
+   * and its SecurityManager.checkRead(String) method denies read access to the directory
+   */
+  public static Iterator<String> globIterator(String pattern) {
+    return GlobIterator.create(pattern, NioDirReader.DEFAULT);
+  }
+
+  /**
+   * globStream is lazy version of {@link #glob(String)}.
+   * See {@link #globIterator(String)}.
+   *
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static Stream<String> globStream(String pattern) {
+    return globStream(globIterator(pattern));
+  }
+
+  /**
+   * globStream is lazy version of {@link #glob(FileSystem, String)}.
+   * See {@link #globIterator(String)}.
+   *
+   * @param fileSystem
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static Stream<String> globStream(FileSystem fileSystem, String pattern) {
+    return globStream(GlobIterator.create(pattern, new NioDirReader(fileSystem)));
+  }
+
+  /**
+   * globStream is lazy version of {@link #glob(Path, String)}.
+   * See {@link #globIterator(String)}.
+   *
+   * @param root
+   * @param pattern
+   * @return
+   * @throws ErrBadPattern
+   */
+  public static Stream<String> globStream(Path root, String pattern) {
+    return globStream(GlobIterator.create(pattern, new NioDirReader(root)));
+  }
+
+  private static Stream<String> globStream(Iterator<String> iterator) {
+    return StreamSupport.stream(
+      Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT),
+      false
+    );
+  }
+
+  @Value.Immutable(builder = false)
+  abstract static class SplitGlobResult {
+    @Value.Parameter
+    public abstract String getDir();
+    @Value.Parameter
+    public abstract String getFile();
+    @Value.Parameter
+    public abstract boolean getDirHasMeta();
+  }
+
+  /**
+   * splitGlob splits pattern, which has meta characters, into directory and file name parts
+   * and prepares directory for glob matching.
+   *
+   * @param pattern
+   * @return (dir, file, dirHasMeta)
+   * @throws ErrBadPattern
+   */
+  static SplitGlobResult splitGlob(String pattern) {
+    SplitResult splitResult = split(pattern);
+    String dir = splitResult.getDir();
+    String file = splitResult.getFile();
+    int volumeLen;
+    if (IS_WINDOWS) {
+      CleanGlobPathWindowsResult cleanGlobPathWindowsResult = cleanGlobPathWindows(dir);
+      volumeLen = cleanGlobPathWindowsResult.getPrefixLen();
+      dir = cleanGlobPathWindowsResult.getCleaned();
+    } else {
+      volumeLen = 0;
+      dir = cleanGlobPath(dir);
+    }
+
+    if (!hasMeta(dir.substring(volumeLen))) {
+      return ImmutableSplitGlobResult.of(dir, file, false);
+    }
+
+    // Prevent infinite recursion. See issue 15879.
+    if (dir.equals(pattern)) {
+      throw new ErrBadPattern();
+    }
+
+    return ImmutableSplitGlobResult.of(dir, file, true);
+  }
+
+  /**
+   * cleanGlobPath prepares path for glob matching.
+   *
+   * @param path
+   * @return
+   */
+  private static String cleanGlobPath(String path) {
+    if (path.isEmpty()) {
       return ".";
     } else if (String.valueOf(SEPARATOR).equals(path)) {
       // do nothing to the path
@@ -635,39 +1311,174 @@ public final class FilePath {
   }
 
   /**
-   * glob searches for files matching pattern in the directory dir
-   * and appends them to matches. If the directory cannot be
-   * opened, it returns the existing matches. New matches are
-   * added in lexicographical order.
+   * A DirEntry is an entry read from a directory
+   * (using the {@link #walkDir} function).
+   */
+  public interface DirEntry {
+    /**
+     * Name returns the name of the file (or subdirectory) described by the entry.
+     * This name is only the final element of the path (the base name), not the entire path.
+     * For example, Name would return "hello.go" not "/home/gopher/hello.go".
+     *
+     * @return
+     */
+    String name();
+
+    /**
+     * IsDir reports whether the entry describes a directory.
+     *
+     * @return
+     */
+    boolean isDir();
+
+    /**
+     * Info returns the attributes of the file or subdirectory described by the entry.
+     * Symbolic links are not followed.
+     *
+     * @return
+     * @throws IOException
+     */
+    BasicFileAttributes info() throws IOException;
+  }
+
+  /**
+   * SkipDir is used as a return value from WalkDirFuncs to indicate that
+   * the directory named in the call is to be skipped. It is not returned
+   * as an error by any function.
    *
-   * @param dir
-   * @param pattern
-   * @param matches
-   * @throws SecurityException - If a security manager exists
-   * and its SecurityManager.checkRead(String) method denies read access to the directory
-   * @return
+   * In Java it should be thrown, see {@link #SKIP_DIR}.
    */
-  private static void glob(String dir, String pattern, ImmutableList.Builder<String> matches) {
-    // Pure Java implementation
-    File d = new File(dir);
-    if (!d.isDirectory()) {
-      return;
+  public static final class SkipDir extends IOException {
+    private SkipDir() {
+      super("skip this directory");
     }
-    String[] names = d.list(
-      new FilenameFilter() {
-        @Override
-        public boolean accept(File dir, String n) {
-          return match(pattern, n);
-        }
-      }
-    );
-    Arrays.sort(names);
-    for (String n: names) {
-      matches.add(join(dir, n));
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
     }
   }
 
-  private static final String MAGIC_CHARS = Runtime.GOOS == WINDOWS ? "*?[" : "*?[\\";
+  public static final SkipDir SKIP_DIR = new SkipDir();
+
+  /**
+   * WalkDirFunc is the type of the function called by {@link #walkDir} to visit
+   * each file or directory.
+   *
+   * The path argument contains the argument to WalkDir as a prefix.
+   * That is, if WalkDir is called with root argument "dir" and finds a file
+   * named "a" in that directory, the walk function will be called with
+   * argument "dir/a".
+   *
+   * The d argument is the DirEntry for the named path.
+   *
+   * The function may throw {@link #SKIP_DIR}: if the function is called on
+   * a directory, WalkDir skips the directory's contents entirely.
+   * If the function is called on a non-directory file,
+   * WalkDir skips the remaining files in the containing directory.
+   * Any other exception stops the entire walk
+   * and is thrown by WalkDir.
+   *
+   * The err argument reports an error related to path, signaling that
+   * WalkDir will not walk into that directory. The function can decide how
+   * to handle that error; as described earlier, throwing the error will
+   * cause WalkDir to stop walking the entire tree.
+   *
+   * WalkDir calls the function with a non-null err argument in two cases.
+   *
+   * First, if the initial lstat on the root directory fails, WalkDir
+   * calls the function with path set to root, d set to null, and err set to
+   * the error.
+   *
+   * Second, if a directory's reading fails, WalkDir calls the
+   * function with path set to the directory's path, d set to a
+   * DirEntry describing the directory, and err set to
+   * the error from reading. This is the second call
+   * of the function for that directory.
+   */
+  @FunctionalInterface
+  public interface WalkDirFunc {
+    void apply(String path, DirEntry d, IOException err) throws IOException;
+  }
+
+  /**
+   * WalkDir walks the file tree rooted at root, calling fn for each file or
+   * directory in the tree, including root.
+   *
+   * All errors that arise visiting files and directories are filtered by fn:
+   * see the {@link WalkDirFunc} documentation for details.
+   *
+   * The files are walked in lexical order, which makes the output deterministic
+   * but requires WalkDir to read an entire directory into memory before proceeding
+   * to walk that directory.
+   *
+   * WalkDir does not follow symbolic links.
+   *
+   * NOTE: WalkDir was added in Go 1.16.
+   *
+   * @param root
+   * @param fn
+   * @throws IOException thrown by fn
+   */
+  /*
+   * Source files:
+   * src/path/filepath/path.go (Go 1.16)
+   */
+  public static void walkDir(String root, WalkDirFunc fn) throws IOException {
+    new DirWalker(NioDirReader.DEFAULT, null).walkDir(root, fn);
+  }
+
+  /**
+   * walkDir is like {@link #walkDir(String, WalkDirFunc)}, but walks the file tree of fileSystem,
+   * like ZIP file system or in-memory one.
+   *
+   * Paths use {@link #SEPARATOR}.
+   * They are converted to the separator of fileSystem when it differs.
+   *
+   * @param fileSystem
+   * @param root
+   * @param fn
+   * @throws IOException thrown by fn
+   */
+  public static void walkDir(FileSystem fileSystem, String root, WalkDirFunc fn) throws IOException {
+    new DirWalker(new NioDirReader(fileSystem), null).walkDir(root, fn);
+  }
+
+  /**
+   * walkDirConcurrent is like {@link #walkDir}, but when a directory is walked,
+   * its subdirectories are read concurrently, on virtual threads where available
+   * or in a dedicated bounded pool of daemon threads otherwise.
+   * Only a bounded number of sibling directories are read ahead of the one being walked,
+   * so that the number of listings held in memory doesn't grow with the width of the tree.
+   *
+   * fn is called in the calling thread, in the same order as by {@link #walkDir}.
+   *
+   * Since directories are read before fn is called for them,
+   * changes made by fn to directories not yet walked may not be seen.
+   *
+   * @param root
+   * @param fn
+   * @throws IOException thrown by fn
+   */
+  public static void walkDirConcurrent(String root, WalkDirFunc fn) throws IOException {
+    walkDirConcurrent(root, fn, DefaultExecutor.INSTANCE);
+  }
+
+  /**
+   * walkDirConcurrent is like {@link #walkDir}, but when a directory is walked,
+   * its subdirectories are read concurrently in executor.
+   * See {@link #walkDirConcurrent(String, WalkDirFunc)}.
+   *
+   * @param root
+   * @param fn
+   * @param executor
+   * @throws IOException thrown by fn
+   */
+  public static void walkDirConcurrent(String root, WalkDirFunc fn, Executor executor) throws IOException {
+    new DirWalker(NioDirReader.DEFAULT, executor).walkDir(root, fn);
+  }
+
+  private static final String MAGIC_CHARS = IS_WINDOWS ? "*?[" : "*?[\\";
 
   /**
    * hasMeta reports whether path contains any of the magic characters
@@ -676,7 +1487,7 @@ public final class FilePath {
    * @param path
    * @return
    */
-  private static boolean hasMeta(String path) {
+  static boolean hasMeta(String path) {
     return StringUtils.containsAny(path, MAGIC_CHARS);
   }
 
@@ -691,23 +1502,52 @@ public final class FilePath {
    * @return
    */
   public static String join(String... elem) {
+    return join(elem, IS_WINDOWS);
+  }
+
+  static String join(final String[] elem, final boolean windows) {
     int elemHigh = elem.length;
     for (int i = 0; i < elemHigh; i++) {
       String e = elem[i];
       if (!e.isEmpty()) {
-        if (Runtime.GOOS == WINDOWS) {
+        if (windows) {
           return joinNonEmpty(elem, i);
         } else {
-          return clean(Strings.join(elem, i, String.valueOf(SEPARATOR)));
+          return joinClean("", elem, i, false);
         }
       }
     }
     return "";
   }
 
+  /**
+   * join is like {@link #join(String...)}, but works with UTF-8 bytes.
+   *
+   * @param elem
+   * @return
+   */
+  public static byte[] join(byte[]... elem) {
+    final ByteBuffer[] buffers = new ByteBuffer[elem.length];
+    for (int i = 0; i < elem.length; i++) {
+      buffers[i] = ByteBuffer.wrap(elem[i]);
+    }
+    return FilePathBytes.toArray(FilePathBytes.join(buffers));
+  }
+
+  /**
+   * join is like {@link #join(String...)}, but works with UTF-8 bytes
+   * between position and limit of each element.
+   *
+   * @param elem
+   * @return
+   */
+  public static ByteBuffer join(ByteBuffer... elem) {
+    return FilePathBytes.join(elem);
+  }
 
   /**
    * joinNonEmpty is like join, but it assumes that the first element is non-empty.
+   * It is used on Windows only.
    *
    * @param elem
    * @return
@@ -716,27 +1556,64 @@ public final class FilePath {
     if (elem[elemLow].length() == 2 && elem[elemLow].charAt(1) == ':') {
       // First element is drive letter without terminating slash.
       // Keep path relative to current directory on that drive.
-      return clean(elem[elemLow] + Strings.join(elem, elemLow + 1, String.valueOf(SEPARATOR)));
+      return joinClean(elem[elemLow], elem, elemLow + 1, true);
     }
     // The following logic prevents Join from inadvertently creating a
     // UNC path on Windows. Unless the first element is a UNC path, Join
     // shouldn't create a UNC path. See golang.org/issue/9167.
-    String p = clean(Strings.join(elem, elemLow, String.valueOf(SEPARATOR)));
-    if (!isUNC(p)) {
+    String p = joinClean("", elem, elemLow, true);
+    if (!isUNC(p, true)) {
       return p;
     }
     // p == UNC only allowed when the first element is a UNC path.
-    String head = clean(elem[elemLow]);
-    if (isUNC(head)) {
+    String head = clean(elem[elemLow], true);
+    if (isUNC(head, true)) {
       return p;
     }
     // head + tail == UNC, but joining two non-UNC paths should not result
     // in a UNC path. Undo creation of UNC path.
-    String tail = clean(Strings.join(elem, elemLow + 1, String.valueOf(SEPARATOR)));
-    if (head.charAt(head.length() - 1) == SEPARATOR) {
+    String tail = joinClean("", elem, elemLow + 1, true);
+    if (head.charAt(head.length() - 1) == '\\') {
       return head + tail;
     }
-    return head + SEPARATOR + tail;
+    return head + '\\' + tail;
+  }
+
+  /**
+   * joinClean returns {@code clean(prefix + Strings.join(elem, elemLow, separator))}.
+   *
+   * This is a copy followed by an in-place clean, not a single fused pass:
+   * elements are first copied into a single buffer, separated by separator,
+   * then the buffer is cleaned in place by {@link #clean(char[], int, int, char[], boolean)},
+   * which scans it again. What is saved is intermediate Strings, not passes over the path.
+   *
+   * @param prefix
+   * @param elem
+   * @param elemLow
+   * @param windows
+   * @return
+   */
+  private static String joinClean(String prefix, String[] elem, int elemLow, boolean windows) {
+    int len = prefix.length();
+    for (int i = elemLow; i < elem.length; i++) {
+      if (i > elemLow) {
+        len++;
+      }
+      len += elem[i].length();
+    }
+    // clean could append "." to empty path
+    final char[] buf = new char[len + 1];
+    prefix.getChars(0, prefix.length(), buf, 0);
+    int w = prefix.length();
+    for (int i = elemLow; i < elem.length; i++) {
+      if (i > elemLow) {
+        buf[w++] = separator(windows);
+      }
+      final String e = elem[i];
+      e.getChars(0, e.length(), buf, w);
+      w += e.length();
+    }
+    return new String(buf, 0, clean(buf, 0, len, buf, windows));
   }
 
   @Value.Immutable(builder = false)
@@ -758,14 +1635,384 @@ public final class FilePath {
    * @return (dir, file)
    */
   public static SplitResult split(String path) {
-    int volNameLen = volumeNameLen(path);
+    return split(path, IS_WINDOWS);
+  }
+
+  static SplitResult split(String path, boolean windows) {
+    int volNameLen = volumeNameLen(path, path.length(), windows);
     int i = path.length() - 1;
-    while (i >= volNameLen && !Os.isPathSeparator(path.charAt(i))) {
+    while (i >= volNameLen && !isPathSeparator(path.charAt(i), windows)) {
       i--;
     }
     return ImmutableSplitResult.of(path.substring(0, i + 1), path.substring(i + 1));
   }
 
+  /**
+   * SplitList splits a list of paths joined by the OS-specific ListSeparator,
+   * usually found in PATH or GOPATH environment variables.
+   * Unlike strings.Split, SplitList returns an empty slice when passed an empty
+   * string.
+   * On Windows, quotes are respected but removed.
+   *
+   * @param path
+   * @return
+   */
+  public static List<String> splitList(String path) {
+    return splitList(path, IS_WINDOWS, LIST_SEPARATOR);
+  }
+
+  static List<String> splitList(String path, boolean windows, char listSeparator) {
+    if (path.isEmpty()) {
+      return ImmutableList.of();
+    }
+    final ImmutableList.Builder<String> list = ImmutableList.builder();
+    if (windows) {
+      // Split path, respecting but preserving quotes.
+      int start = 0;
+      boolean quo = false;
+      boolean hasQuotes = false;
+      for (int i = 0; i < path.length(); i++) {
+        final char c = path.charAt(i);
+        if (c == '"') {
+          quo = !quo;
+          hasQuotes = true;
+        } else if (c == listSeparator && !quo) {
+          list.add(removeQuotes(path, start, i, hasQuotes));
+          start = i + 1;
+          hasQuotes = false;
+        }
+      }
+      list.add(removeQuotes(path, start, path.length(), hasQuotes));
+    } else {
+      int start = 0;
+      int i;
+      while ((i = path.indexOf(listSeparator, start)) != -1) {
+        list.add(path.substring(start, i));
+        start = i + 1;
+      }
+      list.add(path.substring(start));
+    }
+    return list.build();
+  }
+
+  private static String removeQuotes(String path, int low, int high, boolean hasQuotes) {
+    final String s = path.substring(low, high);
+    return hasQuotes ? s.replace("\"", "") : s;
+  }
+
+  /**
+   * Ext returns the file name extension used by path.
+   * The extension is the suffix beginning at the final dot
+   * in the final element of path; it is empty if there is
+   * no dot.
+   *
+   * @param path
+   * @return
+   */
+  public static String ext(String path) {
+    return ext(path, IS_WINDOWS);
+  }
+
+  static String ext(String path, boolean windows) {
+    return path.substring(extStart(path, windows));
+  }
+
+  /**
+   * extStart returns index of the extension in path,
+   * so that {@code ext(path)} is {@code path.substring(extStart(path))}.
+   * It is {@code path.length()} if there is no extension.
+   *
+   * @param path
+   * @return
+   */
+  public static int extStart(String path) {
+    return extStart(path, IS_WINDOWS);
+  }
+
+  static int extStart(String path, boolean windows) {
+    for (int i = path.length() - 1; i >= 0 && !isPathSeparator(path.charAt(i), windows); i--) {
+      if (path.charAt(i) == '.') {
+        return i;
+      }
+    }
+    return path.length();
+  }
+
+  /**
+   * Base returns the last element of path.
+   * Trailing path separators are removed before extracting the last element.
+   * If the path is empty, Base returns ".".
+   * If the path consists entirely of separators, Base returns a single separator.
+   *
+   * @param path
+   * @return
+   */
+  public static String base(String path) {
+    return base(path, IS_WINDOWS);
+  }
+
+  static String base(String path, boolean windows) {
+    if (path.isEmpty()) {
+      return ".";
+    }
+    final int baseEnd = baseEnd(path, windows);
+    final int baseStart = baseStart(path, baseEnd, windows);
+    // If empty now, it had only slashes.
+    if (baseStart == baseEnd) {
+      return String.valueOf(separator(windows));
+    }
+    return path.substring(baseStart, baseEnd);
+  }
+
+  /**
+   * baseEnd returns index after the last element of path,
+   * i.e. length of path without trailing separators.
+   *
+   * If {@code baseStart(path) < baseEnd(path)},
+   * {@code base(path)} is {@code path.substring(baseStart(path), baseEnd(path))}.
+   * Otherwise, path is empty or consists of volume name and separators only,
+   * and {@code base(path)} is "." or Separator.
+   *
+   * @param path
+   * @return
+   */
+  public static int baseEnd(String path) {
+    return baseEnd(path, IS_WINDOWS);
+  }
+
+  static int baseEnd(String path, boolean windows) {
+    // Strip trailing slashes.
+    int baseEnd = path.length();
+    while (baseEnd > 0 && isPathSeparator(path.charAt(baseEnd - 1), windows)) {
+      baseEnd--;
+    }
+    return baseEnd;
+  }
+
+  /**
+   * baseStart returns index of the last element of path.
+   *
+   * See {@link #baseEnd}
+   *
+   * @param path
+   * @return
+   */
+  public static int baseStart(String path) {
+    return baseStart(path, IS_WINDOWS);
+  }
+
+  static int baseStart(String path, boolean windows) {
+    return baseStart(path, baseEnd(path, windows), windows);
+  }
+
+  private static int baseStart(String path, int baseEnd, boolean windows) {
+    // Throw away volume name
+    final int volLen = volumeNameLen(path, baseEnd, windows);
+    // Find the last element
+    int i = baseEnd - 1;
+    while (i >= volLen && !isPathSeparator(path.charAt(i), windows)) {
+      i--;
+    }
+    return i + 1;
+  }
+
+  /**
+   * Dir returns all but the last element of path, typically the path's directory.
+   * After dropping the final element, Dir calls Clean on the path and trailing
+   * slashes are removed.
+   * If the path is empty, Dir returns ".".
+   * If the path consists entirely of separators, Dir returns a single separator.
+   * The returned path does not end in a separator unless it is the root directory.
+   *
+   * @param path
+   * @return
+   */
+  public static String dir(String path) {
+    return dir(path, IS_WINDOWS);
+  }
+
+  static String dir(String path, boolean windows) {
+    final int volLen = volumeNameLen(path, path.length(), windows);
+    int i = path.length() - 1;
+    while (i >= volLen && !isPathSeparator(path.charAt(i), windows)) {
+      i--;
+    }
+    final String dir = clean(path.substring(volLen, i + 1), windows);
+    if (".".equals(dir) && volLen > 2) {
+      // must be UNC
+      return path.substring(0, volLen);
+    }
+    if (volLen == 0) {
+      return dir;
+    }
+    return path.substring(0, volLen) + dir;
+  }
+
+  /**
+   * IsAbs reports whether the path is absolute.
+   *
+   * @param path
+   * @return
+   */
+  public static boolean isAbs(String path) {
+    return isAbs(path, IS_WINDOWS);
+  }
+
+  static boolean isAbs(String path, boolean windows) {
+    if (windows) {
+      final int l = volumeNameLen(path, path.length(), true);
+      if (l == 0) {
+        return false;
+      }
+      if (l == path.length()) {
+        return false;
+      }
+      return isSlash(path.charAt(l));
+    }
+    return path.startsWith("/");
+  }
+
+  /**
+   * Rel returns a relative path that is lexically equivalent to targpath when
+   * joined to basepath with an intervening separator. That is,
+   * Join(basepath, Rel(basepath, targpath)) is equivalent to targpath itself.
+   * On success, the returned path will always be relative to basepath,
+   * even if basepath and targpath share no elements.
+   * An exception is thrown if targpath can't be made relative to basepath or if
+   * knowing the current working directory would be necessary to compute it.
+   * Rel calls Clean on the result.
+   *
+   * @param basepath
+   * @param targpath
+   * @return
+   * @throws IllegalArgumentException if targpath can't be made relative to basepath
+   */
+  public static String rel(String basepath, String targpath) {
+    return rel(basepath, targpath, IS_WINDOWS);
+  }
+
+  static String rel(String basepath, String targpath, boolean windows) {
+    final char separator = separator(windows);
+    final int baseVolLen = volumeNameLen(basepath, basepath.length(), windows);
+    final int targVolLen = volumeNameLen(targpath, targpath.length(), windows);
+    String base = clean(basepath, windows);
+    String targ = clean(targpath, windows);
+    if (sameWord(targ, 0, targ.length(), base, 0, base.length(), windows)) {
+      return ".";
+    }
+    final String baseVol = basepath.substring(0, baseVolLen);
+    final String targVol = targpath.substring(0, targVolLen);
+    base = base.substring(baseVolLen);
+    targ = targ.substring(targVolLen);
+    if (".".equals(base)) {
+      base = "";
+    }
+    // Can't use IsAbs - `\a` and `a` are both relative in Windows.
+    final boolean baseSlashed = !base.isEmpty() && base.charAt(0) == separator;
+    final boolean targSlashed = !targ.isEmpty() && targ.charAt(0) == separator;
+    if (baseSlashed != targSlashed || !sameWord(baseVol, 0, baseVolLen, targVol, 0, targVolLen, windows)) {
+      throw new IllegalArgumentException("Rel: can't make " + targpath + " relative to " + basepath);
+    }
+    // Position base[b0:bi] and targ[t0:ti] at the first differing elements.
+    final int bl = base.length();
+    final int tl = targ.length();
+    int b0 = 0;
+    int bi = 0;
+    int t0 = 0;
+    int ti = 0;
+    while (true) {
+      while (bi < bl && base.charAt(bi) != separator) {
+        bi++;
+      }
+      while (ti < tl && targ.charAt(ti) != separator) {
+        ti++;
+      }
+      if (!sameWord(targ, t0, ti, base, b0, bi, windows)) {
+        break;
+      }
+      if (bi < bl) {
+        bi++;
+      }
+      if (ti < tl) {
+        ti++;
+      }
+      b0 = bi;
+      t0 = ti;
+    }
+    if (bi - b0 == 2 && base.startsWith("..", b0)) {
+      throw new IllegalArgumentException("Rel: can't make " + targpath + " relative to " + basepath);
+    }
+    if (b0 != bl) {
+      // Base elements left. Must go up before going down.
+      int seps = 0;
+      for (int i = b0; i < bl; i++) {
+        if (base.charAt(i) == separator) {
+          seps++;
+        }
+      }
+      int size = 2 + seps * 3;
+      if (tl != t0) {
+        size += 1 + tl - t0;
+      }
+      final char[] buf = new char[size];
+      buf[0] = '.';
+      buf[1] = '.';
+      int n = 2;
+      for (int i = 0; i < seps; i++) {
+        buf[n] = separator;
+        buf[n + 1] = '.';
+        buf[n + 2] = '.';
+        n += 3;
+      }
+      if (t0 != tl) {
+        buf[n] = separator;
+        targ.getChars(t0, tl, buf, n + 1);
+      }
+      return new String(buf);
+    }
+    return targ.substring(t0);
+  }
+
+  /**
+   * sameWord reports whether a[aLow:aHigh] and b[bLow:bHigh] are the same path element.
+   * On Windows comparison is case-insensitive
+   */
+  private static boolean sameWord(String a, int aLow, int aHigh, String b, int bLow, int bHigh, boolean windows) {
+    if (aHigh - aLow != bHigh - bLow) {
+      return false;
+    }
+    return a.regionMatches(windows, aLow, b, bLow, aHigh - aLow);
+  }
+
+  @Value.Immutable(builder = false)
+  public abstract static class ByteSplitResult {
+    @Value.Parameter
+    public abstract ByteBuffer getDir();
+    @Value.Parameter
+    public abstract ByteBuffer getFile();
+  }
+
+  /**
+   * split is like {@link #split(String)}, but works with UTF-8 bytes.
+   *
+   * @param path
+   * @return dir and file sharing content with path
+   */
+  public static ByteSplitResult split(byte[] path) {
+    return FilePathBytes.split(ByteBuffer.wrap(path));
+  }
+
+  /**
+   * split is like {@link #split(String)}, but works with UTF-8 bytes
+   * between position and limit of path.
+   *
+   * @param path
+   * @return dir and file sharing content with path
+   */
+  public static ByteSplitResult split(ByteBuffer path) {
+    return FilePathBytes.split(path);
+  }
+
   /**
    * VolumeName returns length of the leading volume name on Windows.
    * Given "C:\foo\bar" it returns 2 on Windows.
@@ -779,8 +2026,24 @@ public final class FilePath {
    * @return
    */
   public static int volumeNameLen(String path) {
-    if (Runtime.GOOS == WINDOWS) {
-      if (path.length() < 2) {
+    return volumeNameLen((CharSequence)path);
+  }
+
+  static int volumeNameLen(CharSequence path) {
+    return volumeNameLen(path, path.length(), IS_WINDOWS);
+  }
+
+  /**
+   * volumeNameLen returns length of the leading volume name of path[0:l]
+   *
+   * @param path
+   * @param l
+   * @param windows
+   * @return
+   */
+  static int volumeNameLen(CharSequence path, int l, boolean windows) {
+    if (windows) {
+      if (l < 2) {
         return 0;
       }
       // with drive letter
@@ -789,8 +2052,7 @@ public final class FilePath {
         return 2;
       }
       // is it UNC? https://msdn.microsoft.com/en-us/library/windows/desktop/aa365247(v=vs.85).aspx
-      int l;
-      if ((l = path.length()) >= 5 && isSlash(path.charAt(0)) && isSlash(path.charAt(1)) &&
+      if (l >= 5 && isSlash(path.charAt(0)) && isSlash(path.charAt(1)) &&
               !isSlash(path.charAt(2)) && path.charAt(2) != '.') {
         // first, leading `\\` and next shouldn't be `\`. its server name.
         for (int n = 3; n < l - 1; n++) {
@@ -817,6 +2079,27 @@ public final class FilePath {
     return 0;
   }
 
+  /**
+   * volumeNameLen is like {@link #volumeNameLen(String)}, but works with UTF-8 bytes.
+   *
+   * @param path
+   * @return
+   */
+  public static int volumeNameLen(byte[] path) {
+    return FilePathBytes.volumeNameLen(ByteBuffer.wrap(path));
+  }
+
+  /**
+   * volumeNameLen is like {@link #volumeNameLen(String)}, but works with UTF-8 bytes
+   * between position and limit of path.
+   *
+   * @param path
+   * @return
+   */
+  public static int volumeNameLen(ByteBuffer path) {
+    return FilePathBytes.volumeNameLen(path);
+  }
+
   private static boolean isSlash(char c) {
     return c == '\\' || c == '/';
   }
@@ -824,10 +2107,11 @@ public final class FilePath {
   /**
    * isUNC reports whether path is a UNC path.
    * @param path
+   * @param windows
    * @return
    */
-  private static boolean isUNC(String path) {
-    return volumeNameLen(path) > 2;
+  private static boolean isUNC(String path, boolean windows) {
+    return volumeNameLen(path, path.length(), windows) > 2;
   }
 
   private FilePath() {}
@@ -0,0 +1,718 @@
+/*
+ * Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ * Copyright 2010 The Go Authors. All rights reserved.
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static go.Runtime.GoOS.*;
+import go.Os;
+import go.Runtime;
+import go.unicode.Utf8;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Implementation of {@link FilePath} functions over UTF-8 bytes.
+ *
+ * All methods work with bytes between position and limit of ByteBuffers
+ * and don't change their positions.
+ * Bytes are never decoded to UTF-16.
+ * Only {@link #match} decodes UTF-8 runes, where Go does the same.
+ */
+/*
+ * Source files:
+ * src/path/filepath/match.go
+ * src/path/filepath/path.go
+ * src/path/filepath/path_windows.go
+ */
+final class FilePathBytes {
+  private static final byte SEPARATOR = (byte)FilePath.SEPARATOR;
+
+  private static boolean isPathSeparator(byte c) {
+    return c >= 0 && Os.isPathSeparator((char)c);
+  }
+
+  private static boolean isSlash(byte c) {
+    return c == '\\' || c == '/';
+  }
+
+  /**
+   * slice returns bytes [low, high) of b, sharing its content
+   *
+   * @param b
+   * @param low absolute index
+   * @param high absolute index
+   * @return
+   */
+  static ByteBuffer slice(ByteBuffer b, int low, int high) {
+    final ByteBuffer result = b.duplicate();
+    result.limit(high);
+    result.position(low);
+    return result.slice();
+  }
+
+  /**
+   * getBytes copies length bytes of b, starting from absolute index, into dst
+   */
+  private static void getBytes(ByteBuffer b, int index, byte[] dst, int dstLow, int length) {
+    if (b.hasArray()) {
+      System.arraycopy(b.array(), b.arrayOffset() + index, dst, dstLow, length);
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      dst[dstLow + i] = b.get(index + i);
+    }
+  }
+
+  /**
+   * toArray returns remaining bytes of b.
+   * If b covers the whole backing array, the array itself is returned
+   *
+   * @param b
+   * @return
+   */
+  static byte[] toArray(ByteBuffer b) {
+    if (b.hasArray() && b.arrayOffset() == 0 && b.position() == 0 && b.remaining() == b.array().length) {
+      return b.array();
+    }
+    final byte[] result = new byte[b.remaining()];
+    getBytes(b, b.position(), result, 0, result.length);
+    return result;
+  }
+
+  /**
+   * See {@link FilePath#volumeNameLen(String)}
+   *
+   * @param path
+   * @return
+   */
+  static int volumeNameLen(ByteBuffer path) {
+    if (Runtime.GOOS == WINDOWS) {
+      final int low = path.position();
+      final int l = path.remaining();
+      if (l < 2) {
+        return 0;
+      }
+      // with drive letter
+      final byte c = path.get(low);
+      if (path.get(low + 1) == ':' && ('a' <= c && c <= 'z' || 'A' <= c && c <= 'Z')) {
+        return 2;
+      }
+      // is it UNC? https://msdn.microsoft.com/en-us/library/windows/desktop/aa365247(v=vs.85).aspx
+      if (l >= 5 && isSlash(path.get(low)) && isSlash(path.get(low + 1)) &&
+              !isSlash(path.get(low + 2)) && path.get(low + 2) != '.') {
+        // first, leading `\\` and next shouldn't be `\`. its server name.
+        for (int n = 3; n < l - 1; n++) {
+          // second, next '\' shouldn't be repeated.
+          if (isSlash(path.get(low + n))) {
+            n++;
+            // third, following something characters. its share name.
+            if (!isSlash(path.get(low + n))) {
+              if (path.get(low + n) == '.') {
+                break;
+              }
+              for (; n < l; n++) {
+                if (isSlash(path.get(low + n))) {
+                  break;
+                }
+              }
+              return n;
+            }
+            break;
+          }
+        }
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * A lazybuf is a lazily constructed path buffer.
+   * See {@code FilePath.Lazybuf}
+   */
+  private static final class Lazybuf {
+    private final ByteBuffer volAndPath;
+    private final int low; // absolute index of volAndPath start
+    private final int volLen;
+    private final int pathLen; // without volLen
+    private byte[] buf; // with volLen
+    public int w; // low, without volLen
+
+    public Lazybuf(ByteBuffer volAndPath, int volLen) {
+      this.volAndPath = volAndPath;
+      low = volAndPath.position();
+      this.volLen = volLen;
+      pathLen = volAndPath.remaining() - volLen;
+      w = 0;
+      if (SEPARATOR != '/') {
+        for (int i = 0; i < volLen; i++) {
+          if (volAndPath.get(low + i) == '/') {
+            diverge();
+            break;
+          }
+        }
+      }
+    }
+
+    private void diverge() {
+      // Output is never longer than path, except "." appended to empty path
+      buf = new byte[volLen + Math.max(pathLen, 1)];
+      getBytes(volAndPath, low, buf, 0, volLen + w);
+      if (SEPARATOR != '/') {
+        for (int i = 0; i < volLen; i++) {
+          if (buf[i] == '/') {
+            buf[i] = SEPARATOR;
+          }
+        }
+      }
+    }
+
+    public byte index(int i) {
+      if (buf != null) {
+        return buf[volLen + i];
+      }
+      return volAndPath.get(low + volLen + i);
+    }
+
+    public void append(byte c) {
+      if (buf == null) {
+        if (w < pathLen && volAndPath.get(low + volLen + w) == c) {
+          w++;
+          return;
+        }
+        diverge();
+      }
+      buf[volLen + w] = c;
+      w++;
+    }
+
+    public ByteBuffer bytes() {
+      if (buf == null) {
+        return slice(volAndPath, low, low + volLen + w);
+      }
+      final int n = volLen + w;
+      return ByteBuffer.wrap(n == buf.length ? buf : Arrays.copyOf(buf, n));
+    }
+  }
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+
+  /**
+   * hasByte reports whether any of 8 bytes of word is c
+   */
+  private static boolean hasByte(long word, byte c) {
+    final long x = word ^ ONES * (c & 0xFF);
+    return (x - ONES & ~x & HIGH_BITS) != 0;
+  }
+
+  /**
+   * hasPathSeparator reports whether any of 8 bytes of word is a path separator
+   */
+  private static boolean hasPathSeparator(long word) {
+    return hasByte(word, (byte)'/') || SEPARATOR != '/' && hasByte(word, SEPARATOR);
+  }
+
+  /**
+   * See {@link FilePath#isClean(CharSequence)}
+   *
+   * Path elements are skipped 8 bytes at a time,
+   * so that long names are not checked byte by byte.
+   *
+   * @param path
+   * @return
+   */
+  static boolean isClean(final ByteBuffer path) {
+    final int volLen = volumeNameLen(path);
+    final int low = path.position();
+    final int n = path.remaining();
+    // Slashes in volume name are replaced by Separator
+    if (SEPARATOR != '/') {
+      for (int i = 0; i < volLen; i++) {
+        if (path.get(low + i) == '/') {
+          return false;
+        }
+      }
+    }
+    int r = volLen;
+    if (r >= n) {
+      // "." is appended to empty path, but not to UNC volume name
+      return volLen > 1 && path.get(low + 1) != ':';
+    }
+    final boolean rooted = isPathSeparator(path.get(low + r));
+    if (rooted) {
+      if (path.get(low + r) != SEPARATOR) {
+        return false;
+      }
+      r++;
+      if (r == n) {
+        return true;
+      }
+    }
+    // .. elements are clean only as a leading ../../.. prefix of unrooted path
+    boolean dotdot = !rooted;
+    while (true) {
+      final int elemLow = r;
+      while (r + Long.BYTES <= n && !hasPathSeparator(path.getLong(low + r))) {
+        r += Long.BYTES;
+      }
+      while (r < n && !isPathSeparator(path.get(low + r))) {
+        r++;
+      }
+      if (r == elemLow) {
+        // empty path element, either doubled or trailing separator
+        return false;
+      }
+      if (path.get(low + elemLow) == '.' && r == elemLow + 1) {
+        // . element is clean only as the whole path after volume name
+        if (elemLow != volLen || r != n) {
+          return false;
+        }
+      } else if (path.get(low + elemLow) == '.' && r == elemLow + 2 && path.get(low + elemLow + 1) == '.') {
+        if (!dotdot) {
+          return false;
+        }
+      } else {
+        dotdot = false;
+      }
+      if (r == n) {
+        return true;
+      }
+      if (path.get(low + r) != SEPARATOR) {
+        return false;
+      }
+      r++;
+    }
+  }
+
+  /**
+   * See {@link FilePath#clean(String)}
+   *
+   * @param path
+   * @return cleaned path. If path is already clean, it is a slice of path
+   */
+  static ByteBuffer clean(final ByteBuffer path) {
+    if (isClean(path)) {
+      return slice(path, path.position(), path.limit());
+    }
+    final int volLen = volumeNameLen(path);
+    final int low = path.position();
+    int r = volLen; // pathLow, relative to low
+    final int n = path.remaining(); // pathLen
+    final Lazybuf out = new Lazybuf(path, volLen);
+    if (r >= n) {
+      if (!(volLen > 1 && path.get(low + 1) != ':')) {
+        // not UNC
+        out.append((byte)'.');
+      }
+      return out.bytes();
+    }
+    final boolean rooted = isPathSeparator(path.get(low + r));
+
+    // Invariants:
+    //	reading from path; r is index of next byte to process.
+    //	writing to buf; w is index of next byte to write.
+    //	dotdot is index in buf where .. must stop, either because
+    //		it is the leading slash or it is a leading ../../.. prefix.
+    int dotdot;
+    if (rooted) {
+      out.append(SEPARATOR);
+      r++;
+      dotdot = 1;
+    } else {
+      dotdot = 0;
+    }
+
+    while (r < n) {
+      final byte c = path.get(low + r);
+      if (isPathSeparator(c)) {
+        // empty path element
+        r++;
+      } else if (c == '.' && (r + 1 == n || isPathSeparator(path.get(low + r + 1)))) {
+        // . element
+        r++;
+      } else if (c == '.' && path.get(low + r + 1) == '.' && (r + 2 == n || isPathSeparator(path.get(low + r + 2)))) {
+        // .. element: remove to last separator
+        r += 2;
+        if (out.w > dotdot) {
+          // can backtrack
+          out.w--;
+          while (out.w > dotdot && !isPathSeparator(out.index(out.w))) {
+            out.w--;
+          }
+        } else if (!rooted) {
+          // cannot backtrack, but not rooted, so append .. element.
+          if (out.w > 0) {
+            out.append(SEPARATOR);
+          }
+          out.append((byte)'.');
+          out.append((byte)'.');
+          dotdot = out.w;
+        }
+      } else {
+        // real path element.
+        // add slash if needed
+        if (rooted && out.w != 1 || !rooted && out.w != 0) {
+          out.append(SEPARATOR);
+        }
+        // copy element
+        for (; r < n && !isPathSeparator(path.get(low + r)); r++) {
+          out.append(path.get(low + r));
+        }
+      }
+    }
+
+    // Turn empty string into "."
+    if (out.w == 0) {
+      out.append((byte)'.');
+    }
+
+    return out.bytes();
+  }
+
+  /**
+   * See {@link FilePath#split(String)}
+   *
+   * @param path
+   * @return slices of path
+   */
+  static FilePath.ByteSplitResult split(final ByteBuffer path) {
+    final int low = path.position();
+    final int high = path.limit();
+    final int volLen = volumeNameLen(path);
+    int i = high - 1;
+    while (i >= low + volLen && !isPathSeparator(path.get(i))) {
+      i--;
+    }
+    return ImmutableByteSplitResult.of(slice(path, low, i + 1), slice(path, i + 1, high));
+  }
+
+  /**
+   * See {@link FilePath#join(String...)}
+   *
+   * @param elem
+   * @return
+   */
+  static ByteBuffer join(final ByteBuffer... elem) {
+    for (int i = 0; i < elem.length; i++) {
+      if (elem[i].hasRemaining()) {
+        if (Runtime.GOOS == WINDOWS) {
+          return joinNonEmpty(elem, i);
+        } else {
+          return clean(concat(null, elem, i));
+        }
+      }
+    }
+    return ByteBuffer.allocate(0);
+  }
+
+  /**
+   * concat returns {@code prefix + Strings.join(elem, elemLow, SEPARATOR)}
+   *
+   * @param prefix may be null
+   * @param elem
+   * @param elemLow
+   * @return
+   */
+  private static ByteBuffer concat(ByteBuffer prefix, ByteBuffer[] elem, int elemLow) {
+    int len = prefix == null ? 0 : prefix.remaining();
+    for (int i = elemLow; i < elem.length; i++) {
+      if (i > elemLow) {
+        len++;
+      }
+      len += elem[i].remaining();
+    }
+    final byte[] result = new byte[len];
+    int w = 0;
+    if (prefix != null) {
+      getBytes(prefix, prefix.position(), result, 0, prefix.remaining());
+      w = prefix.remaining();
+    }
+    for (int i = elemLow; i < elem.length; i++) {
+      if (i > elemLow) {
+        result[w++] = SEPARATOR;
+      }
+      final ByteBuffer e = elem[i];
+      getBytes(e, e.position(), result, w, e.remaining());
+      w += e.remaining();
+    }
+    return ByteBuffer.wrap(result);
+  }
+
+  private static boolean isUNC(ByteBuffer path) {
+    return volumeNameLen(path) > 2;
+  }
+
+  /**
+   * See {@code FilePath.joinNonEmpty}
+   *
+   * @param elem
+   * @param elemLow
+   * @return
+   */
+  private static ByteBuffer joinNonEmpty(ByteBuffer[] elem, int elemLow) {
+    final ByteBuffer first = elem[elemLow];
+    if (first.remaining() == 2 && first.get(first.position() + 1) == ':') {
+      // First element is drive letter without terminating slash.
+      // Keep path relative to current directory on that drive.
+      return clean(concat(first, elem, elemLow + 1));
+    }
+    // The following logic prevents Join from inadvertently creating a
+    // UNC path on Windows. Unless the first element is a UNC path, Join
+    // shouldn't create a UNC path. See golang.org/issue/9167.
+    final ByteBuffer p = clean(concat(null, elem, elemLow));
+    if (!isUNC(p)) {
+      return p;
+    }
+    // p == UNC only allowed when the first element is a UNC path.
+    final ByteBuffer head = clean(first);
+    if (isUNC(head)) {
+      return p;
+    }
+    // head + tail == UNC, but joining two non-UNC paths should not result
+    // in a UNC path. Undo creation of UNC path.
+    final ByteBuffer tail = clean(concat(null, elem, elemLow + 1));
+    if (head.get(head.limit() - 1) == SEPARATOR) {
+      return concat(head, new ByteBuffer[] {tail}, 0);
+    }
+    return concat(head, new ByteBuffer[] {ByteBuffer.allocate(0), tail}, 0);
+  }
+
+  /**
+   * See {@link FilePath#match(String, String)}
+   *
+   * @param pattern
+   * @param name
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  static boolean match(final ByteBuffer pattern, final ByteBuffer name) {
+    int patternLow = pattern.position();
+    int nameLow = name.position();
+    final int patternHigh = pattern.limit();
+    final int nameHigh = name.limit();
+    pattern:
+    while (patternLow < patternHigh) {
+      final long scanChunkResult = scanChunk(pattern, patternLow, patternHigh);
+      final int chunkLow = FilePath.chunkLow(scanChunkResult);
+      final int chunkHigh = FilePath.chunkHigh(scanChunkResult);
+      final boolean star = chunkLow > patternLow;
+      if (star && chunkLow == chunkHigh) {
+        // Trailing * matches rest of string unless it has a /.
+        for (int i = nameLow; i < nameHigh; i++) {
+          if (name.get(i) == SEPARATOR) {
+            return false;
+          }
+        }
+        return true;
+      }
+      patternLow = chunkHigh; // rest
+      // Look for match at current position.
+      int t = matchChunk(pattern, chunkLow, chunkHigh, name, nameLow, nameHigh);
+      // if we're the last chunk, make sure we've exhausted the name
+      // otherwise we'll give a false result even if we could still match
+      // using the star
+      if (t >= 0 && (t == nameHigh || patternLow < patternHigh)) {
+        nameLow = t;
+        continue;
+      }
+      if (star) {
+        // Look for match skipping i+1 bytes.
+        // Cannot skip /.
+        for (int i = nameLow; i < nameHigh && name.get(i) != SEPARATOR; i++) {
+          t = matchChunk(pattern, chunkLow, chunkHigh, name, i + 1, nameHigh);
+          if (t >= 0) {
+            // if we're the last chunk, make sure we exhausted the name
+            if (patternLow == patternHigh && t < nameHigh) {
+              continue;
+            }
+            nameLow = t;
+            continue pattern;
+          }
+        }
+      }
+      return false;
+    }
+    return nameLow == nameHigh;
+  }
+
+  /**
+   * See {@link FilePath#scanChunk}
+   */
+  private static long scanChunk(final ByteBuffer pattern, int chunkLow, final int patternHigh) {
+    while (chunkLow < patternHigh && pattern.get(chunkLow) == '*') {
+      chunkLow++;
+    }
+    boolean inrange = false;
+    int i;
+    scan:
+    for (i = chunkLow; i < patternHigh; i++) {
+      switch (pattern.get(i)) {
+        case '\\':
+          if (Runtime.GOOS != WINDOWS) {
+            // error check handled in matchChunk: bad pattern.
+            if (i + 1 < patternHigh) {
+              i++;
+            }
+          }
+          break;
+        case '[':
+          inrange = true;
+          break;
+        case ']':
+          inrange = false;
+          break;
+        case '*':
+          if (!inrange) {
+            break scan;
+          }
+          break;
+      }
+    }
+    return FilePath.pack(chunkLow, i);
+  }
+
+  /**
+   * width returns the number of bytes taken by rune r decoded by {@link Utf8#decodeRune}
+   */
+  private static int width(int r) {
+    return r < 0 ? 1 : Utf8.runeLen(r);
+  }
+
+  /**
+   * See {@code FilePath.matchChunk}
+   *
+   * @return index of the remainder of s, or -1 if there is no match
+   * @throws FilePath.ErrBadPattern
+   */
+  private static int matchChunk(final ByteBuffer chunk, int chunkLow, final int chunkHigh, final ByteBuffer s, int sLow, final int sHigh) {
+    int r;
+    while (chunkLow < chunkHigh) {
+      if (sLow == sHigh) {
+        return -1;
+      }
+      switch (chunk.get(chunkLow)) {
+        case '[':
+          // character class
+          r = Utf8.decodeRune(s, sLow, sHigh);
+          sLow += width(r);
+          if (r < 0) {
+            r = Utf8.RUNE_ERROR;
+          }
+          chunkLow++;
+          // We can't end right after '[', we're expecting at least
+          // a closing bracket and possibly a caret.
+          if (chunkLow == chunkHigh) {
+            throw new FilePath.ErrBadPattern();
+          }
+          // possibly negated
+          boolean negated = chunk.get(chunkLow) == '^';
+          if (negated) {
+            chunkLow++;
+          }
+          // parse all ranges
+          boolean match = false;
+          int nrange = 0;
+          while (true) {
+            if (chunkLow < chunkHigh && chunk.get(chunkLow) == ']' && nrange > 0) {
+              chunkLow++;
+              break;
+            }
+            final int lo;
+            final int hi;
+            long getEscResult = getEsc(chunk, chunkLow, chunkHigh);
+            lo = FilePath.escR(getEscResult);
+            chunkLow = FilePath.escNChunkLow(getEscResult);
+            if (chunk.get(chunkLow) == '-') {
+              getEscResult = getEsc(chunk, chunkLow + 1, chunkHigh);
+              hi = FilePath.escR(getEscResult);
+              chunkLow = FilePath.escNChunkLow(getEscResult);
+            } else {
+              hi = lo;
+            }
+            if (lo <= r && r <= hi) {
+              match = true;
+            }
+            nrange++;
+          }
+          if (match == negated) {
+            return -1;
+          }
+          break;
+
+        case '?':
+          if (s.get(sLow) == SEPARATOR) {
+            return -1;
+          }
+          sLow += width(Utf8.decodeRune(s, sLow, sHigh));
+          chunkLow++;
+          break;
+
+        case '\\':
+          if (Runtime.GOOS != WINDOWS) {
+            chunkLow++;
+            if (chunkLow == chunkHigh) {
+              throw new FilePath.ErrBadPattern();
+            }
+          }
+          // fallthrough
+
+        default:
+          if (chunk.get(chunkLow) != s.get(sLow)) {
+            return -1;
+          }
+          sLow++;
+          chunkLow++;
+      }
+    }
+    return sLow;
+  }
+
+  /**
+   * See {@link FilePath#getEsc}
+   *
+   * @return (r, chunkLow) packed into long
+   * @throws FilePath.ErrBadPattern
+   */
+  private static long getEsc(final ByteBuffer chunk, int chunkLow, final int chunkHigh) {
+    if (chunkLow >= chunkHigh || chunk.get(chunkLow) == '-' || chunk.get(chunkLow) == ']') {
+      throw new FilePath.ErrBadPattern();
+    }
+    if (chunk.get(chunkLow) == '\\' && Runtime.GOOS != WINDOWS) {
+      chunkLow++;
+      if (chunkLow >= chunkHigh) {
+        throw new FilePath.ErrBadPattern();
+      }
+    }
+    final int r = Utf8.decodeRune(chunk, chunkLow, chunkHigh);
+    if (r < 0) {
+      throw new FilePath.ErrBadPattern();
+    }
+    chunkLow += Utf8.runeLen(r);
+    if (chunkLow >= chunkHigh) {
+      throw new FilePath.ErrBadPattern();
+    }
+    return FilePath.pack(r, chunkLow);
+  }
+
+  private FilePathBytes() {}
+}
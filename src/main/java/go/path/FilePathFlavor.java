@@ -0,0 +1,295 @@
+/*
+ * Path flavors for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * FilePathFlavor provides lexical functions of {@link FilePath}
+ * for paths of the given system, regardless of the current one.
+ * It is not a part of Go: Go selects the flavor at build time by GOOS.
+ *
+ * Use {@link FilePath#UNIX} and {@link FilePath#WINDOWS}.
+ * Each flavor is a separate final class with constant separator logic,
+ * so that it is folded when calls through these constants are inlined.
+ *
+ * Functions working with file system, such as glob and walk, are not provided:
+ * they use paths of the current system only.
+ *
+ * Instances are immutable and safe for use by multiple concurrent threads.
+ */
+public abstract class FilePathFlavor {
+  static final FilePathFlavor UNIX = new Unix();
+  static final FilePathFlavor WINDOWS = new Windows();
+
+  FilePathFlavor() {}
+
+  /**
+   * windows reports whether this is Windows flavor
+   *
+   * @return
+   */
+  abstract boolean windows();
+
+  /**
+   * Separator of path elements
+   *
+   * @return
+   */
+  public final char separator() {
+    return FilePath.separator(windows());
+  }
+
+  /**
+   * Separator of paths in lists, like PATH environment variable
+   *
+   * @return
+   */
+  public final char listSeparator() {
+    return windows() ? ';' : ':';
+  }
+
+  /**
+   * isPathSeparator reports whether c is a directory separator character.
+   *
+   * @param c
+   * @return
+   */
+  public final boolean isPathSeparator(char c) {
+    return FilePath.isPathSeparator(c, windows());
+  }
+
+  /**
+   * See {@link FilePath#clean(String)}
+   *
+   * @param path
+   * @return
+   */
+  public final String clean(String path) {
+    return FilePath.clean(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#clean(char[], int, int, char[])}
+   *
+   * @param src
+   * @param srcOff
+   * @param len
+   * @param dst
+   * @return
+   */
+  public final int clean(char[] src, int srcOff, int len, char[] dst) {
+    return FilePath.clean(src, srcOff, len, dst, windows());
+  }
+
+  /**
+   * See {@link FilePath#isClean(CharSequence)}
+   *
+   * @param path
+   * @return
+   */
+  public final boolean isClean(CharSequence path) {
+    return FilePath.isClean(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#cleanAll(String[], String[])}
+   *
+   * @param in
+   * @param out
+   */
+  public final void cleanAll(String[] in, String[] out) {
+    BulkClean.cleanAll(in, out, ForkJoinPool.commonPool(), windows());
+  }
+
+  /**
+   * See {@link FilePath#cleanAll(Stream)}
+   *
+   * @param paths
+   * @return
+   */
+  public final Stream<String> cleanAll(Stream<String> paths) {
+    return BulkClean.cleanAll(paths, windows());
+  }
+
+  /**
+   * See {@link FilePath#toSlash}
+   *
+   * @param path
+   * @return
+   */
+  public final String toSlash(String path) {
+    return FilePath.toSlash(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#fromSlash}
+   *
+   * @param path
+   * @return
+   */
+  public final String fromSlash(String path) {
+    return FilePath.fromSlash(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#match(String, String)}
+   *
+   * @param pattern
+   * @param name
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  public final boolean match(String pattern, String name) {
+    return FilePath.match(pattern, name, windows());
+  }
+
+  /**
+   * See {@link FilePath#compile}
+   *
+   * @param pattern
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  public final CompiledPattern compile(String pattern) {
+    return CompiledPattern.compile(pattern, windows());
+  }
+
+  /**
+   * See {@link FilePath#join(String...)}
+   *
+   * @param elem
+   * @return
+   */
+  public final String join(String... elem) {
+    return FilePath.join(elem, windows());
+  }
+
+  /**
+   * See {@link FilePath#split(String)}
+   *
+   * @param path
+   * @return
+   */
+  public final FilePath.SplitResult split(String path) {
+    return FilePath.split(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#splitList}
+   *
+   * @param path
+   * @return
+   */
+  public final List<String> splitList(String path) {
+    return FilePath.splitList(path, windows(), listSeparator());
+  }
+
+  /**
+   * See {@link FilePath#ext}
+   *
+   * @param path
+   * @return
+   */
+  public final String ext(String path) {
+    return FilePath.ext(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#base}
+   *
+   * @param path
+   * @return
+   */
+  public final String base(String path) {
+    return FilePath.base(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#dir}
+   *
+   * @param path
+   * @return
+   */
+  public final String dir(String path) {
+    return FilePath.dir(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#isAbs}
+   *
+   * @param path
+   * @return
+   */
+  public final boolean isAbs(String path) {
+    return FilePath.isAbs(path, windows());
+  }
+
+  /**
+   * See {@link FilePath#rel}
+   *
+   * @param basepath
+   * @param targpath
+   * @return
+   * @throws IllegalArgumentException if targpath can't be made relative to basepath
+   */
+  public final String rel(String basepath, String targpath) {
+    return FilePath.rel(basepath, targpath, windows());
+  }
+
+  /**
+   * See {@link FilePath#volumeNameLen(String)}
+   *
+   * @param path
+   * @return
+   */
+  public final int volumeNameLen(String path) {
+    return FilePath.volumeNameLen(path, path.length(), windows());
+  }
+
+  private static final class Unix extends FilePathFlavor {
+    @Override
+    boolean windows() {
+      return false;
+    }
+
+    @Override
+    public String toString() {
+      return "unix";
+    }
+  }
+
+  private static final class Windows extends FilePathFlavor {
+    @Override
+    boolean windows() {
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return "windows";
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ * Copyright 2010 The Go Authors. All rights reserved.
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import com.google.common.collect.Iterators;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Lazy implementation of {@link FilePath#glob}.
+ *
+ * Directories are read one at a time, when the previous one is exhausted.
+ * Listing of directory is released as soon as all its matches are returned.
+ *
+ * Iteration can be cancelled: cancellation is checked before each directory is read,
+ * by this iterator and by iterators over the directories it reads.
+ */
+/*
+ * Source files:
+ * src/path/filepath/match.go
+ */
+final class GlobIterator implements Iterator<String> {
+  private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+  private final DirReader reader;
+  private final Iterator<String> dirs;
+  private final CompiledPattern pattern;
+  private final boolean dirsOnly;
+  /**
+   * Maximum number of names to return, or {@link Integer#MAX_VALUE} if there is no limit
+   */
+  private final int limit;
+  /**
+   * Whether iteration is cancelled, so that no more directories should be read
+   */
+  private final BooleanSupplier cancelled;
+  private int count;
+  private String dir;
+  private String[] names;
+  private int i;
+
+  private GlobIterator(DirReader reader, Iterator<String> dirs, CompiledPattern pattern, boolean dirsOnly, int limit, BooleanSupplier cancelled) {
+    this.reader = reader;
+    this.dirs = dirs;
+    this.pattern = pattern;
+    this.dirsOnly = dirsOnly;
+    this.limit = limit;
+    this.cancelled = cancelled;
+  }
+
+  /**
+   * create returns iterator over the names of all files matching pattern.
+   *
+   * @param pattern
+   * @param reader
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  static Iterator<String> create(String pattern, DirReader reader) {
+    return create(pattern, reader, false, Integer.MAX_VALUE, NEVER_CANCELLED);
+  }
+
+  /**
+   * create returns iterator over the names of all files matching pattern,
+   * which stops reading directories once cancelled returns true.
+   * Then iterator ends, returning no more names.
+   *
+   * @param pattern
+   * @param reader
+   * @param cancelled
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  static Iterator<String> create(String pattern, DirReader reader, BooleanSupplier cancelled) {
+    return create(pattern, reader, false, Integer.MAX_VALUE, cancelled);
+  }
+
+  /**
+   * create returns iterator over the first limit names of all files matching pattern.
+   * Directories are not read after limit names are returned,
+   * and only the names to be returned are sorted.
+   *
+   * @param pattern
+   * @param reader
+   * @param limit positive
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  static Iterator<String> create(String pattern, DirReader reader, int limit) {
+    return create(pattern, reader, false, limit, NEVER_CANCELLED);
+  }
+
+  /**
+   * create returns iterator over the names of all files matching pattern.
+   *
+   * @param pattern
+   * @param reader
+   * @param dirsOnly whether returned names are used as directories only,
+   * so that names known to be files can be skipped
+   * @param limit
+   * @param cancelled
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  private static Iterator<String> create(String pattern, DirReader reader, boolean dirsOnly, int limit, BooleanSupplier cancelled) {
+    if (!FilePath.hasMeta(pattern)) {
+      if (!reader.exists(pattern)) {
+        return Collections.emptyIterator();
+      }
+      return Iterators.singletonIterator(pattern);
+    }
+
+    FilePath.SplitGlobResult splitGlobResult = FilePath.splitGlob(pattern);
+    String dir = splitGlobResult.getDir();
+    CompiledPattern filePattern = FilePath.compile(splitGlobResult.getFile());
+
+    if (!splitGlobResult.getDirHasMeta()) {
+      return new GlobIterator(reader, Iterators.singletonIterator(dir), filePattern, dirsOnly, limit, cancelled);
+    }
+
+    return new GlobIterator(reader, create(dir, reader, true, Integer.MAX_VALUE, cancelled), filePattern, dirsOnly, limit, cancelled);
+  }
+
+  /**
+   * exists reports whether any file matches pattern.
+   * Directories matching the directory part of pattern are found as by glob,
+   * reading and sorting them fully.
+   * Each of these directories, though, is read only until the first match of the file name part.
+   *
+   * @param pattern
+   * @param reader
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  static boolean exists(String pattern, DirReader reader) {
+    if (!FilePath.hasMeta(pattern)) {
+      return reader.exists(pattern);
+    }
+
+    FilePath.SplitGlobResult splitGlobResult = FilePath.splitGlob(pattern);
+    String dir = splitGlobResult.getDir();
+    CompiledPattern filePattern = FilePath.compile(splitGlobResult.getFile());
+
+    if (!splitGlobResult.getDirHasMeta()) {
+      return reader.containsMatch(dir, filePattern);
+    }
+
+    final Iterator<String> dirs = create(dir, reader, true, Integer.MAX_VALUE, NEVER_CANCELLED);
+    while (dirs.hasNext()) {
+      if (reader.containsMatch(dirs.next(), filePattern)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (count == limit) {
+      names = null;
+      return false;
+    }
+    while (names == null || i == names.length) {
+      names = null;
+      if (!dirs.hasNext() || cancelled.getAsBoolean()) {
+        return false;
+      }
+      dir = dirs.next();
+      names = limit == Integer.MAX_VALUE
+        ? reader.readDirNames(dir, pattern, dirsOnly)
+        : reader.readDirNames(dir, pattern, dirsOnly, limit - count);
+      i = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    count++;
+    return FilePath.join(dir, names[i++]);
+  }
+}
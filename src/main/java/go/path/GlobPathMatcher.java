@@ -0,0 +1,78 @@
+/*
+ * Path matcher for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import go.Os;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+
+/**
+ * {@link PathMatcher} for {@link FilePath#match} patterns.
+ * See {@link FilePath#getPathMatcher}.
+ *
+ * Pattern is compiled once.
+ * Pattern without Separator is matched against {@link Path#getFileName()} only,
+ * which is cheaper to convert to String than the whole path.
+ * Other patterns are matched against the whole path,
+ * with separator of its file system replaced by {@link FilePath#SEPARATOR}.
+ *
+ * Instances are immutable and safe for use by multiple concurrent threads.
+ */
+final class GlobPathMatcher implements PathMatcher {
+  private final CompiledPattern pattern;
+  /**
+   * Whether pattern has path separators
+   */
+  private final boolean hierarchical;
+
+  GlobPathMatcher(String pattern) {
+    this.pattern = FilePath.compile(pattern);
+    boolean hierarchical = false;
+    for (int i = 0; i < pattern.length(); i++) {
+      if (Os.isPathSeparator(pattern.charAt(i))) {
+        hierarchical = true;
+        break;
+      }
+    }
+    this.hierarchical = hierarchical;
+  }
+
+  @Override
+  public boolean matches(Path path) {
+    if (!hierarchical) {
+      final Path name = path.getFileName();
+      return pattern.matches(name != null ? name.toString() : "");
+    }
+    String s = path.toString();
+    final String separator = path.getFileSystem().getSeparator();
+    if (separator.length() == 1 && separator.charAt(0) != FilePath.SEPARATOR) {
+      s = s.replace(separator.charAt(0), FilePath.SEPARATOR);
+    }
+    return pattern.matches(s);
+  }
+
+  @Override
+  public String toString() {
+    return FilePath.PATH_MATCHER_SYNTAX + ':' + pattern.pattern();
+  }
+}
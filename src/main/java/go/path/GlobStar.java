@@ -0,0 +1,397 @@
+/*
+ * Extended glob for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import com.google.common.collect.ImmutableList;
+import go.Os;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * GlobStar is an extension of {@link FilePath#match} pattern syntax
+ * for hierarchical names. It is not a part of Go.
+ *
+ * Pattern is a sequence of path elements separated by Separator.
+ * Path element {@code **} matches any number of path elements, including none.
+ * Any other path element is a pattern as accepted by {@link FilePath#match}
+ * and matches exactly one path element.
+ * {@code **} inside path element, like {@code a**b}, has the same meaning as {@code *}.
+ *
+ * Empty and {@code .} path elements are ignored, both in pattern and in matched paths,
+ * so {@code a//b/./c} is the same as {@code a/b/c}. {@code ..} elements are matched literally.
+ *
+ * Instances are immutable and safe for use by multiple concurrent threads.
+ */
+public final class GlobStar {
+  /**
+   * Maximum number of path elements in pattern
+   */
+  private static final int MAX_ELEMENTS = Long.SIZE - 1;
+
+  private final String pattern;
+  /**
+   * Volume name and leading separator of the pattern, if any
+   */
+  private final String root;
+  /**
+   * Path elements of pattern. {@code null} stands for {@code **}
+   */
+  private final CompiledPattern[] elements;
+  /**
+   * Directory to start walking from
+   */
+  private final String base;
+  /**
+   * States after matching base
+   */
+  private final long baseStates;
+
+  private GlobStar(String pattern, String root, CompiledPattern[] elements, String base, int baseElements) {
+    this.pattern = pattern;
+    this.root = root;
+    this.elements = elements;
+    this.base = base;
+    this.baseStates = closure(1L << baseElements);
+  }
+
+  /**
+   * compile parses extended pattern.
+   *
+   * @param pattern
+   * @return
+   * @throws FilePath.ErrBadPattern if any path element is malformed
+   * @throws IllegalArgumentException if pattern has too many path elements
+   */
+  public static GlobStar compile(final String pattern) {
+    final String root = root(pattern);
+    final List<String> names = elements(pattern, root.length());
+    if (names.size() > MAX_ELEMENTS) {
+      throw new IllegalArgumentException("too many path elements in pattern: " + names.size());
+    }
+    final CompiledPattern[] elements = new CompiledPattern[names.size()];
+    final StringBuilder base = new StringBuilder(root);
+    int literals = -1;
+    for (int i = 0; i < elements.length; i++) {
+      final String name = names.get(i);
+      if ("**".equals(name)) {
+        elements[i] = null;
+      } else {
+        elements[i] = FilePath.compile(name);
+      }
+      if (literals == -1) {
+        if (elements[i] != null && !FilePath.hasMeta(name)) {
+          if (base.length() > root.length()) {
+            base.append(FilePath.SEPARATOR);
+          }
+          base.append(name);
+        } else {
+          literals = i;
+        }
+      }
+    }
+    if (literals == -1) {
+      literals = elements.length;
+    }
+    // Base is not cleaned, since .. elements are matched literally.
+    // It has no empty and . elements already
+    return new GlobStar(pattern, root, elements, base.length() == 0 ? "." : base.toString(), literals);
+  }
+
+  /**
+   * root returns volume name and leading separator of path
+   *
+   * @param path
+   * @return
+   */
+  private static String root(final String path) {
+    int rootLen = FilePath.volumeNameLen(path);
+    if (rootLen < path.length() && Os.isPathSeparator(path.charAt(rootLen))) {
+      rootLen++;
+    }
+    return path.substring(0, rootLen);
+  }
+
+  /**
+   * elements returns non-empty path elements of path other than {@code .}
+   *
+   * @param path
+   * @param low
+   * @return
+   */
+  private static List<String> elements(final String path, int low) {
+    final List<String> result = new ArrayList<>();
+    final int high = path.length();
+    while (low < high) {
+      int i = low;
+      while (i < high && !Os.isPathSeparator(path.charAt(i))) {
+        i++;
+      }
+      if (i > low && !(i == low + 1 && path.charAt(low) == '.')) {
+        result.add(path.substring(low, i));
+      }
+      low = i + 1;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the source pattern
+   *
+   * @return
+   */
+  public String pattern() {
+    return pattern;
+  }
+
+  /*
+   * Matching is done by simulation of non-deterministic automaton.
+   * State i means that first i path elements of pattern are matched.
+   * Set of states is a bit mask.
+   */
+
+  /**
+   * closure adds states reachable by matching {@code **} with no path elements
+   *
+   * @param states
+   * @return
+   */
+  private long closure(long states) {
+    for (int i = 0; i < elements.length; i++) {
+      if ((states & 1L << i) != 0 && elements[i] == null) {
+        states |= 1L << (i + 1);
+      }
+    }
+    return states;
+  }
+
+  /**
+   * step returns states after matching one more path element
+   *
+   * @param states
+   * @param name path element
+   * @return
+   */
+  private long step(final long states, final String name) {
+    long next = 0L;
+    for (int i = 0; i < elements.length; i++) {
+      if ((states & 1L << i) != 0) {
+        if (elements[i] == null) {
+          next |= 1L << i;
+        } else if (elements[i].matches(name)) {
+          next |= 1L << (i + 1);
+        }
+      }
+    }
+    return closure(next);
+  }
+
+  private boolean accepts(final long states) {
+    return (states & 1L << elements.length) != 0;
+  }
+
+  /**
+   * canContinue reports whether any longer path could match
+   *
+   * @param states
+   * @return
+   */
+  private boolean canContinue(final long states) {
+    return (states & (1L << elements.length) - 1) != 0;
+  }
+
+  /**
+   * matches reports whether path matches the pattern.
+   *
+   * @param path
+   * @return
+   */
+  public boolean matches(final String path) {
+    final String pathRoot = root(path);
+    if (!pathRoot.equals(root)) {
+      return false;
+    }
+    long states = closure(1L);
+    for (String name : elements(path, pathRoot.length())) {
+      states = step(states, name);
+      if (states == 0L) {
+        return false;
+      }
+    }
+    return accepts(states);
+  }
+
+  /**
+   * glob returns the names of all files matching pattern.
+   * Directory tree is walked in {@link ForkJoinPool#commonPool()}.
+   *
+   * See {@link #glob(ForkJoinPool)}
+   *
+   * @return
+   */
+  public List<String> glob() {
+    return glob(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * glob returns the names of all files matching pattern.
+   *
+   * Directory tree is walked starting from the longest leading part of the pattern
+   * without meta characters. Sibling directories are read concurrently in pool,
+   * so parallelism is bounded by the parallelism of pool.
+   * Sub-trees which can't contain matches are not read.
+   * Symbolic links to directories are not followed.
+   *
+   * Names are returned in lexical order of path elements,
+   * each directory before its contents, as {@code WalkDir} visits them.
+   * The base directory itself is returned when it matches,
+   * unless it is the current directory {@code "."},
+   * so that {@code "**"} returns the contents of the current directory only.
+   *
+   * Glob ignores file system errors such as I/O errors reading directories.
+   *
+   * @param pool
+   * @return
+   * @throws SecurityException - If a security manager exists
+   * and its SecurityManager.checkRead(String) method denies read access to the directory
+   */
+  public List<String> glob(final ForkJoinPool pool) {
+    final Path basePath = NioDirReader.DEFAULT.toPath(base);
+    if (basePath == null || !Files.exists(basePath, LinkOption.NOFOLLOW_LINKS)) {
+      return ImmutableList.of();
+    }
+    final ImmutableList.Builder<String> matches = ImmutableList.builder();
+    if (accepts(baseStates) && !".".equals(base)) {
+      matches.add(base);
+    }
+    if (canContinue(baseStates)) {
+      final List<Object> results = pool.invoke(new WalkTask(base, basePath, baseStates));
+      // Flatten results without recursion
+      final Deque<Object> stack = new ArrayDeque<>();
+      for (int i = results.size() - 1; i >= 0; i--) {
+        stack.push(results.get(i));
+      }
+      while (!stack.isEmpty()) {
+        final Object result = stack.pop();
+        if (result instanceof String) {
+          matches.add((String)result);
+        } else {
+          final List<Object> subResults = ((WalkTask)result).join();
+          for (int i = subResults.size() - 1; i >= 0; i--) {
+            stack.push(subResults.get(i));
+          }
+        }
+      }
+    }
+    return matches.build();
+  }
+
+  /**
+   * WalkTask reads one directory.
+   * Its result is a list of matched names and tasks for subdirectories, in order.
+   */
+  private final class WalkTask extends RecursiveTask<List<Object>> {
+    private final String dir;
+    private final Path dirPath;
+    private final long states;
+
+    WalkTask(String dir, Path dirPath, long states) {
+      this.dir = dir;
+      this.dirPath = dirPath;
+      this.states = states;
+    }
+
+    @Override
+    protected List<Object> compute() {
+      final List<Entry> entries = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dirPath)) {
+        for (Path entry : stream) {
+          final String name = entry.getFileName().toString();
+          final long next = step(states, name);
+          if (next != 0L) {
+            entries.add(new Entry(name, entry, next));
+          }
+        }
+      } catch (IOException | DirectoryIteratorException ignored) {
+        // Glob ignores file system errors
+      }
+      entries.sort(Comparator.comparing(entry -> entry.name));
+      final List<Object> results = new ArrayList<>(entries.size());
+      for (Entry entry : entries) {
+        final String path = child(dir, entry.name);
+        if (accepts(entry.states)) {
+          results.add(path);
+        }
+        // Entry of directory stream carries file attributes where the platform supplies them,
+        // so that checking its type doesn't need additional I/O there
+        if (canContinue(entry.states) && Files.isDirectory(entry.path, LinkOption.NOFOLLOW_LINKS)) {
+          final WalkTask task = new WalkTask(path, entry.path, entry.states);
+          task.fork();
+          results.add(task);
+        }
+      }
+      return results;
+    }
+  }
+
+  /**
+   * Entry is a directory entry which can match or lead to a match,
+   * with the states reached after its name.
+   */
+  private static final class Entry {
+    final String name;
+    final Path path;
+    final long states;
+
+    Entry(String name, Path path, long states) {
+      this.name = name;
+      this.path = path;
+      this.states = states;
+    }
+  }
+
+  private static String child(String dir, String name) {
+    if (".".equals(dir)) {
+      return name;
+    }
+    if (Os.isPathSeparator(dir.charAt(dir.length() - 1))) {
+      return dir + name;
+    }
+    return dir + FilePath.SEPARATOR + name;
+  }
+
+  @Override
+  public String toString() {
+    return pattern;
+  }
+}
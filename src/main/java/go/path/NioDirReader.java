@@ -0,0 +1,235 @@
+/*
+ * Directory reading for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static go.Runtime.GoOS.*;
+import go.Runtime;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * {@link DirReader} built on {@link Files#newDirectoryStream(Path)}.
+ * Name of each entry is converted to String once and matched while iterating.
+ *
+ * Unlike {@link java.io.File#list}, it doesn't need to stat the directory before reading it:
+ * if dir is not a directory, opening the stream fails with {@link java.nio.file.NotDirectoryException}.
+ *
+ * On Windows directory entries carry their attributes,
+ * so non-directories are skipped without additional I/O when only directories are needed.
+ * Other platforms don't supply file type with {@link DirectoryStream} entries,
+ * so there entries are returned as is, and reading them as directories fails later.
+ *
+ * Reader can be bound to any {@link FileSystem}, like ZIP file system,
+ * and to a root directory which relative paths are resolved against.
+ * Paths which resolve outside of root, like absolute ones or ones with {@code ..}
+ * going above root, are invalid. Symbolic links are followed though,
+ * so they can lead outside of root.
+ * Paths are in the syntax of FilePath, with {@link FilePath#SEPARATOR},
+ * and are converted to the separator of the file system when it differs.
+ */
+final class NioDirReader implements DirReader {
+  static final NioDirReader DEFAULT = new NioDirReader(FileSystems.getDefault());
+
+  private static final String[] EMPTY = new String[0];
+
+  private final FileSystem fileSystem;
+  /**
+   * Directory to resolve paths against, or null
+   */
+  private final Path root;
+  /**
+   * Absolute normalized root, or null
+   */
+  private final Path absoluteRoot;
+  /**
+   * Separator of the file system, or 0 if it is the same as {@link FilePath#SEPARATOR}
+   */
+  private final char separator;
+  /**
+   * Whether attributes of DirectoryStream entries are cached
+   * and can be read without additional I/O
+   */
+  private final boolean entryAttributesCached;
+
+  NioDirReader(FileSystem fileSystem) {
+    this(fileSystem, null);
+  }
+
+  NioDirReader(Path root) {
+    this(root.getFileSystem(), root);
+  }
+
+  private NioDirReader(FileSystem fileSystem, Path root) {
+    this.fileSystem = fileSystem;
+    this.root = root;
+    this.absoluteRoot = root != null ? root.toAbsolutePath().normalize() : null;
+    final String fileSystemSeparator = fileSystem.getSeparator();
+    this.separator = fileSystemSeparator.length() == 1 && fileSystemSeparator.charAt(0) != FilePath.SEPARATOR ? fileSystemSeparator.charAt(0) : 0;
+    this.entryAttributesCached = Runtime.GOOS == WINDOWS && fileSystem == FileSystems.getDefault();
+  }
+
+  /**
+   * Converts path to {@link Path}
+   *
+   * @param path
+   * @return
+   * @throws InvalidPathException if path is invalid or resolves outside of root
+   */
+  Path getPath(String path) {
+    if (separator != 0) {
+      path = path.replace(FilePath.SEPARATOR, separator);
+    }
+    if (root != null) {
+      final Path result = root.resolve(path);
+      if (!result.toAbsolutePath().normalize().startsWith(absoluteRoot)) {
+        throw new InvalidPathException(path, "Path is outside of root");
+      }
+      return result;
+    }
+    return fileSystem.getPath(path);
+  }
+
+  /**
+   * Converts path to {@link Path}
+   *
+   * @param path
+   * @return path, or null if it is invalid
+   */
+  Path toPath(String path) {
+    try {
+      return getPath(path);
+    } catch (InvalidPathException e) {
+      return null;
+    }
+  }
+
+  @Override
+  public boolean exists(String path) {
+    final Path p = toPath(path);
+    return p != null && Files.exists(p, LinkOption.NOFOLLOW_LINKS);
+  }
+
+  @Override
+  public String[] readDirNames(String dir, CompiledPattern pattern, boolean dirsOnly) {
+    final Path d = toPath(dir);
+    if (d == null) {
+      return EMPTY;
+    }
+    final boolean skipFiles = dirsOnly && entryAttributesCached;
+    final List<String> names = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(d)) {
+      for (Path entry : stream) {
+        final String name = entry.getFileName().toString();
+        if (!pattern.matches(name) || skipFiles && isFile(entry)) {
+          continue;
+        }
+        names.add(name);
+      }
+    } catch (IOException | DirectoryIteratorException ignored) {
+      // Glob ignores file system errors.
+      // Names read before the error are returned, as Readdirnames does
+    }
+    Collections.sort(names);
+    return names.toArray(EMPTY);
+  }
+
+  @Override
+  public String[] readDirNames(String dir, CompiledPattern pattern, boolean dirsOnly, int limit) {
+    final Path d = toPath(dir);
+    if (d == null) {
+      return EMPTY;
+    }
+    final boolean skipFiles = dirsOnly && entryAttributesCached;
+    // The greatest of the first names is at the head
+    final PriorityQueue<String> names = new PriorityQueue<>(Math.min(limit, 16), Comparator.reverseOrder());
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(d)) {
+      for (Path entry : stream) {
+        final String name = entry.getFileName().toString();
+        if (!pattern.matches(name) || names.size() == limit && name.compareTo(names.peek()) >= 0) {
+          continue;
+        }
+        if (skipFiles && isFile(entry)) {
+          continue;
+        }
+        if (names.size() == limit) {
+          names.poll();
+        }
+        names.add(name);
+      }
+    } catch (IOException | DirectoryIteratorException ignored) {
+      // Glob ignores file system errors.
+    }
+    final String[] result = names.toArray(EMPTY);
+    Arrays.sort(result);
+    return result;
+  }
+
+  @Override
+  public boolean containsMatch(String dir, CompiledPattern pattern) {
+    final Path d = toPath(dir);
+    if (d == null) {
+      return false;
+    }
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(d)) {
+      for (Path entry : stream) {
+        if (pattern.matches(entry.getFileName().toString())) {
+          return true;
+        }
+      }
+      return false;
+    } catch (IOException | DirectoryIteratorException ignored) {
+      // Glob ignores file system errors.
+      return false;
+    }
+  }
+
+  /**
+   * isFile reports whether entry is known to be not a directory
+   * nor a link to directory
+   *
+   * @param entry
+   * @return
+   */
+  private static boolean isFile(Path entry) {
+    try {
+      final BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      return attributes.isRegularFile();
+    } catch (IOException e) {
+      return false;
+    }
+  }
+}
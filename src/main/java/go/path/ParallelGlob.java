@@ -0,0 +1,120 @@
+/*
+ * Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ * Copyright 2010 The Go Authors. All rights reserved.
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Parallel implementation of {@link FilePath#glob}.
+ *
+ * Directories matched by the directory part of the pattern are read concurrently.
+ * Each listing is sorted, and listings are concatenated in the order of directories,
+ * so the result is the same as of sequential glob.
+ */
+/*
+ * Source files:
+ * src/path/filepath/match.go
+ */
+final class ParallelGlob {
+  /**
+   * glob returns the names of all files matching pattern or null
+   * if there is no matching file.
+   *
+   * @param pattern
+   * @param reader
+   * @param executor
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  static List<String> glob(String pattern, DirReader reader, Executor executor) {
+    if (!FilePath.hasMeta(pattern)) {
+      if (!reader.exists(pattern)) {
+        return null;
+      }
+      return ImmutableList.of(pattern);
+    }
+    return glob(pattern, reader, executor, false);
+  }
+
+  /**
+   * glob returns the names of all files matching pattern, which has meta characters.
+   *
+   * @param pattern
+   * @param reader
+   * @param executor
+   * @param dirsOnly whether returned names are used as directories only
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  private static List<String> glob(String pattern, DirReader reader, Executor executor, boolean dirsOnly) {
+    FilePath.SplitGlobResult splitGlobResult = FilePath.splitGlob(pattern);
+    String dir = splitGlobResult.getDir();
+    CompiledPattern filePattern = FilePath.compile(splitGlobResult.getFile());
+
+    ImmutableList.Builder<String> matches = ImmutableList.builder();
+
+    if (!splitGlobResult.getDirHasMeta()) {
+      for (String n : reader.readDirNames(dir, filePattern, dirsOnly)) {
+        matches.add(FilePath.join(dir, n));
+      }
+      return matches.build();
+    }
+
+    List<String> m = glob(dir, reader, executor, true);
+    @SuppressWarnings("unchecked")
+    CompletableFuture<String[]>[] names = new CompletableFuture[m.size()];
+    for (int i = 0; i < names.length; i++) {
+      final String d = m.get(i);
+      names[i] = CompletableFuture.supplyAsync(() -> reader.readDirNames(d, filePattern, dirsOnly), executor);
+    }
+    for (int i = 0; i < names.length; i++) {
+      final String d = m.get(i);
+      for (String n : join(names[i])) {
+        matches.add(FilePath.join(d, n));
+      }
+    }
+    return matches.build();
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error)cause;
+      }
+      throw e;
+    }
+  }
+
+  private ParallelGlob() {}
+}
@@ -0,0 +1,371 @@
+/*
+ * Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ * Copyright 2009 The Go Authors. All rights reserved.
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+/**
+ * Go package {@code path} implements utility routines for manipulating slash-separated
+ * paths.
+ *
+ * The {@code path} package should only be used for paths separated by forward
+ * slashes, such as the paths in URLs. This package does not deal with
+ * Windows paths with drive letters or backslashes; to manipulate
+ * operating system paths, use {@link FilePath}.
+ */
+/*
+ * Source files:
+ * src/path/path.go
+ * src/path/match.go
+ */
+public final class Path {
+  /**
+   * isClean reports whether path is returned by {@link #clean} unchanged.
+   * It does a single scan without allocation.
+   *
+   * @param path
+   * @return
+   */
+  private static boolean isClean(final String path) {
+    final int n = path.length();
+    if (n == 0) {
+      return false;
+    }
+    int r = 0;
+    if (path.charAt(0) == '/') {
+      if (n == 1) {
+        return true;
+      }
+      r++;
+    }
+    // .. elements are clean only as a leading ../../.. prefix of unrooted path
+    boolean dotdot = r == 0;
+    while (true) {
+      final int low = r;
+      while (r < n && path.charAt(r) != '/') {
+        r++;
+      }
+      // empty path element, either doubled or trailing slash
+      if (r == low) {
+        return false;
+      }
+      if (path.charAt(low) == '.' && r == low + 1) {
+        // . element is clean only as the whole path
+        if (n != 1) {
+          return false;
+        }
+      } else if (path.charAt(low) == '.' && r == low + 2 && path.charAt(low + 1) == '.') {
+        if (!dotdot) {
+          return false;
+        }
+      } else {
+        dotdot = false;
+      }
+      if (r == n) {
+        return true;
+      }
+      r++;
+    }
+  }
+
+  /**
+   * Clean returns the shortest path name equivalent to path
+   * by purely lexical processing. It applies the following rules
+   * iteratively until no further processing can be done:
+   *
+   * 1. Replace multiple slashes with a single slash.
+   * 2. Eliminate each . path name element (the current directory).
+   * 3. Eliminate each inner .. path name element (the parent directory)
+   *    along with the non-.. element that precedes it.
+   * 4. Eliminate .. elements that begin a rooted path:
+   *    that is, replace "/.." by "/" at the beginning of a path.
+   *
+   * The returned path ends in a slash only if it is the root "/".
+   *
+   * If the result of this process is an empty string, Clean
+   * returns the string ".".
+   *
+   * See also Rob Pike, ``Lexical File Names in Plan 9 or
+   * Getting Dot-Dot Right,''
+   * https://9p.io/sys/doc/lexnames.html
+   *
+   * If path is already clean, it is returned as is, without allocation.
+   *
+   * @param path
+   * @return
+   */
+  public static String clean(final String path) {
+    if (isClean(path)) {
+      return path;
+    }
+    final int n = path.length();
+    // clean could append "." to empty path
+    final char[] buf = new char[n + 1];
+    path.getChars(0, n, buf, 0);
+    return new String(buf, 0, clean(buf, n));
+  }
+
+  /**
+   * clean cleans path in {@code buf[0, n)} in place.
+   * Output is never longer than path, except "." appended to empty path,
+   * so buf must have at least {@code n + 1} chars.
+   *
+   * @param buf
+   * @param n
+   * @return length of the result
+   */
+  private static int clean(final char[] buf, final int n) {
+    if (n == 0) {
+      buf[0] = '.';
+      return 1;
+    }
+    final boolean rooted = buf[0] == '/';
+
+    // Invariants:
+    //	reading from path; r is index of next char to process.
+    //	writing to buf; w is index of next char to write, w <= r.
+    //	dotdot is index in buf where .. must stop, either because
+    //		it is the leading slash or it is a leading ../../.. prefix.
+    int r = 0;
+    int w = 0;
+    int dotdot = 0;
+    if (rooted) {
+      w = 1;
+      r = 1;
+      dotdot = 1;
+    }
+
+    while (r < n) {
+      if (buf[r] == '/') {
+        // empty path element
+        r++;
+      } else if (buf[r] == '.' && (r + 1 == n || buf[r + 1] == '/')) {
+        // . element
+        r++;
+      } else if (buf[r] == '.' && buf[r + 1] == '.' && (r + 2 == n || buf[r + 2] == '/')) {
+        // .. element: remove to last /
+        r += 2;
+        if (w > dotdot) {
+          // can backtrack
+          w--;
+          while (w > dotdot && buf[w] != '/') {
+            w--;
+          }
+        } else if (!rooted) {
+          // cannot backtrack, but not rooted, so append .. element.
+          if (w > 0) {
+            buf[w++] = '/';
+          }
+          buf[w++] = '.';
+          buf[w++] = '.';
+          dotdot = w;
+        }
+      } else {
+        // real path element.
+        // add slash if needed
+        if (rooted && w != 1 || !rooted && w != 0) {
+          buf[w++] = '/';
+        }
+        // copy element
+        for (; r < n && buf[r] != '/'; r++) {
+          buf[w++] = buf[r];
+        }
+      }
+    }
+
+    // Turn empty string into "."
+    if (w == 0) {
+      buf[w++] = '.';
+    }
+    return w;
+  }
+
+  /**
+   * Split splits path immediately following the final slash,
+   * separating it into a directory and file name component.
+   * If there is no slash in path, Split returns an empty dir and
+   * file set to path.
+   * The returned values have the property that path = dir+file.
+   *
+   * @param path
+   * @return (dir, file)
+   */
+  public static FilePath.SplitResult split(final String path) {
+    final int i = path.lastIndexOf('/');
+    return ImmutableSplitResult.of(path.substring(0, i + 1), path.substring(i + 1));
+  }
+
+  /**
+   * Join joins any number of path elements into a single path,
+   * separating them with slashes. Empty elements are ignored.
+   * The result is Cleaned. However, if the argument list is
+   * empty or all its elements are empty, Join returns
+   * an empty string.
+   *
+   * @param elem
+   * @return
+   */
+  public static String join(final String... elem) {
+    int len = 0;
+    int nonEmpty = -1;
+    for (int i = 0; i < elem.length; i++) {
+      final int l = elem[i].length();
+      if (l > 0) {
+        if (nonEmpty == -1) {
+          nonEmpty = i;
+        } else {
+          len++;
+        }
+        len += l;
+      }
+    }
+    if (nonEmpty == -1) {
+      return "";
+    }
+    if (len == elem[nonEmpty].length()) {
+      // Single non-empty element
+      return clean(elem[nonEmpty]);
+    }
+    // clean could append "." to empty path
+    final char[] buf = new char[len + 1];
+    int w = 0;
+    for (int i = nonEmpty; i < elem.length; i++) {
+      final String e = elem[i];
+      if (e.isEmpty()) {
+        continue;
+      }
+      if (w > 0) {
+        buf[w++] = '/';
+      }
+      e.getChars(0, e.length(), buf, w);
+      w += e.length();
+    }
+    return new String(buf, 0, clean(buf, len));
+  }
+
+  /**
+   * Ext returns the file name extension used by path.
+   * The extension is the suffix beginning at the final dot
+   * in the final slash-separated element of path;
+   * it is empty if there is no dot.
+   *
+   * @param path
+   * @return
+   */
+  public static String ext(final String path) {
+    for (int i = path.length() - 1; i >= 0 && path.charAt(i) != '/'; i--) {
+      if (path.charAt(i) == '.') {
+        return path.substring(i);
+      }
+    }
+    return "";
+  }
+
+  /**
+   * Base returns the last element of path.
+   * Trailing slashes are removed before extracting the last element.
+   * If the path is empty, Base returns ".".
+   * If the path consists entirely of slashes, Base returns "/".
+   *
+   * @param path
+   * @return
+   */
+  public static String base(final String path) {
+    if (path.isEmpty()) {
+      return ".";
+    }
+    // Strip trailing slashes.
+    int high = path.length();
+    while (high > 0 && path.charAt(high - 1) == '/') {
+      high--;
+    }
+    // If empty now, it had only slashes.
+    if (high == 0) {
+      return "/";
+    }
+    // Find the last element
+    final int low = path.lastIndexOf('/', high - 1) + 1;
+    return path.substring(low, high);
+  }
+
+  /**
+   * IsAbs reports whether the path is absolute.
+   *
+   * @param path
+   * @return
+   */
+  public static boolean isAbs(final String path) {
+    return !path.isEmpty() && path.charAt(0) == '/';
+  }
+
+  /**
+   * Dir returns all but the last element of path, typically the path's directory.
+   * After dropping the final element using Split, the path is Cleaned and trailing
+   * slashes are removed.
+   * If the path is empty, Dir returns ".".
+   * If the path consists entirely of slashes followed by non-slash bytes, Dir
+   * returns a single slash. In any other case, the returned path does not end in a
+   * slash.
+   *
+   * @param path
+   * @return
+   */
+  public static String dir(final String path) {
+    return clean(path.substring(0, path.lastIndexOf('/') + 1));
+  }
+
+  /**
+   * Match reports whether name matches the shell pattern.
+   * The pattern syntax is:
+   *
+   * pattern:
+   * 	{ term }
+   * term:
+   * 	'*'         matches any sequence of non-/ characters
+   * 	'?'         matches any single non-/ character
+   * 	'[' [ '^' ] { character-range } ']'
+   * 	            character class (must be non-empty)
+   * 	c           matches character c (c != '*', '?', '\\', '[')
+   * 	'\\' c      matches character c
+   *
+   * character-range:
+   * 	c           matches character c (c != '\\', '-', ']')
+   * 	'\\' c      matches character c
+   * 	lo '-' hi   matches character c for lo <= c <= hi
+   *
+   * Match requires pattern to match all of name, not just a substring.
+   * The only possible returned error is ErrBadPattern, when pattern
+   * is malformed.
+   *
+   * Unlike {@link FilePath#match}, escaping is enabled on all operating systems.
+   *
+   * @param pattern
+   * @param name
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  public static boolean match(final String pattern, final String name) {
+    return FilePath.match(pattern, name, false);
+  }
+
+  private Path() {}
+}
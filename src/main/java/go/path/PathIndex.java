@@ -0,0 +1,303 @@
+/*
+ * In-memory path index for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PathIndex is an in-memory set of paths, organized as a tree of path elements,
+ * which can be queried with {@link FilePath#glob} patterns without a file system.
+ * It is not a part of Go.
+ *
+ * Paths are cleaned when added. Parent directories of added paths are implied,
+ * as on a file system: an index of {@code a/b/c} contains {@code a} and {@code a/b} too.
+ * A path is a directory if any other path is under it.
+ *
+ * Glob over the index returns the same names in the same order
+ * as {@link FilePath#glob} would return on a file system with the same files.
+ * Directories are looked up by their literal path elements,
+ * and literal file name patterns are looked up without listing the directory.
+ *
+ * Instances are immutable and safe for use by multiple concurrent threads.
+ */
+public final class PathIndex {
+  private static final String[] EMPTY = new String[0];
+
+  /**
+   * Node of the tree. Names of children are sorted
+   */
+  private static final class Node {
+    /**
+     * All files share the same node
+     */
+    static final Node LEAF = new Node(EMPTY, new Node[0]);
+
+    final String[] names;
+    final Node[] children;
+
+    Node(String[] names, Node[] children) {
+      this.names = names;
+      this.children = children;
+    }
+
+    Node child(String name) {
+      final int i = Arrays.binarySearch(names, name);
+      return i >= 0 ? children[i] : null;
+    }
+
+    boolean isDir() {
+      return names.length > 0;
+    }
+  }
+
+  /**
+   * Trees by volume name and leading Separator of their paths
+   */
+  private final Map<String, Node> roots;
+  private final DirReader reader = new Reader();
+
+  private PathIndex(Map<String, Node> roots) {
+    this.roots = roots;
+  }
+
+  /**
+   * Builder of PathIndex.
+   * It is not thread-safe.
+   */
+  public static final class Builder {
+    private static final class MutableNode {
+      Map<String, MutableNode> children;
+    }
+
+    private final Map<String, MutableNode> roots = new HashMap<>();
+    /**
+     * Path elements repeat a lot in large trees, so that they are kept once
+     */
+    private final Map<String, String> names = new HashMap<>();
+
+    private Builder() {
+    }
+
+    /**
+     * add adds cleaned path to the index
+     *
+     * @param path
+     * @return this builder
+     */
+    public Builder add(String path) {
+      path = FilePath.clean(path);
+      final int low = rootLength(path);
+      MutableNode node = roots.computeIfAbsent(path.substring(0, low), k -> new MutableNode());
+      int i = low;
+      while (i < path.length()) {
+        int j = path.indexOf(FilePath.SEPARATOR, i);
+        if (j == -1) {
+          j = path.length();
+        }
+        if (!(j == i + 1 && path.charAt(i) == '.')) {
+          if (node.children == null) {
+            node.children = new HashMap<>();
+          }
+          final String name = names.computeIfAbsent(path.substring(i, j), k -> k);
+          node = node.children.computeIfAbsent(name, k -> new MutableNode());
+        }
+        i = j + 1;
+      }
+      return this;
+    }
+
+    /**
+     * addAll adds all cleaned paths to the index
+     *
+     * @param paths
+     * @return this builder
+     */
+    public Builder addAll(Iterable<String> paths) {
+      for (String path : paths) {
+        add(path);
+      }
+      return this;
+    }
+
+    public PathIndex build() {
+      final ImmutableMap.Builder<String, Node> result = ImmutableMap.builder();
+      for (Map.Entry<String, MutableNode> root : roots.entrySet()) {
+        result.put(root.getKey(), freeze(root.getValue()));
+      }
+      return new PathIndex(result.build());
+    }
+
+    private static Node freeze(MutableNode node) {
+      if (node.children == null) {
+        return Node.LEAF;
+      }
+      final String[] names = node.children.keySet().toArray(EMPTY);
+      Arrays.sort(names);
+      final Node[] children = new Node[names.length];
+      for (int i = 0; i < names.length; i++) {
+        children[i] = freeze(node.children.get(names[i]));
+      }
+      return new Node(names, children);
+    }
+  }
+
+  /**
+   * Returns new builder
+   *
+   * @return
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns index of paths
+   *
+   * @param paths
+   * @return
+   */
+  public static PathIndex of(Iterable<String> paths) {
+    return builder().addAll(paths).build();
+  }
+
+  /**
+   * rootLength returns length of volume name and leading Separator of cleaned path
+   *
+   * @param path
+   * @return
+   */
+  private static int rootLength(String path) {
+    int low = FilePath.volumeNameLen(path);
+    if (low < path.length() && path.charAt(low) == FilePath.SEPARATOR) {
+      low++;
+    }
+    return low;
+  }
+
+  /**
+   * find returns node of path, or null if there is no such path in the index
+   *
+   * @param path
+   * @return
+   */
+  private Node find(String path) {
+    path = FilePath.clean(path);
+    final int low = rootLength(path);
+    Node node = roots.get(path.substring(0, low));
+    int i = low;
+    while (node != null && i < path.length()) {
+      int j = path.indexOf(FilePath.SEPARATOR, i);
+      if (j == -1) {
+        j = path.length();
+      }
+      if (!(j == i + 1 && path.charAt(i) == '.')) {
+        node = node.child(path.substring(i, j));
+      }
+      i = j + 1;
+    }
+    return node;
+  }
+
+  /**
+   * contains reports whether path or any path under it was added to the index
+   *
+   * @param path
+   * @return
+   */
+  public boolean contains(String path) {
+    return find(path) != null;
+  }
+
+  /**
+   * isDir reports whether any path under path was added to the index
+   *
+   * @param path
+   * @return
+   */
+  public boolean isDir(String path) {
+    final Node node = find(path);
+    return node != null && node.isDir();
+  }
+
+  /**
+   * glob is like {@link FilePath#glob(String)}, but matches paths in the index.
+   *
+   * @param pattern
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  public List<String> glob(String pattern) {
+    return FilePath.glob(pattern, reader);
+  }
+
+  /**
+   * globIterator is like {@link FilePath#globIterator(String)}, but matches paths in the index.
+   *
+   * @param pattern
+   * @return
+   * @throws FilePath.ErrBadPattern
+   */
+  public Iterator<String> globIterator(String pattern) {
+    return GlobIterator.create(pattern, reader);
+  }
+
+  /**
+   * Reader of directories in the index
+   */
+  private final class Reader implements DirReader {
+    @Override
+    public boolean exists(String path) {
+      return contains(path);
+    }
+
+    @Override
+    public String[] readDirNames(String dir, CompiledPattern pattern, boolean dirsOnly) {
+      final Node node = find(dir);
+      if (node == null) {
+        return EMPTY;
+      }
+      if (pattern.isLiteral()) {
+        final String name = pattern.literalPrefix();
+        final Node child = node.child(name);
+        if (child == null || dirsOnly && !child.isDir()) {
+          return EMPTY;
+        }
+        return new String[] {name};
+      }
+      final String[] names = node.names;
+      final String[] result = new String[names.length];
+      int n = 0;
+      for (int i = 0; i < names.length; i++) {
+        if ((!dirsOnly || node.children[i].isDir()) && pattern.matches(names[i])) {
+          result[n++] = names[i];
+        }
+      }
+      return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+  }
+}
@@ -0,0 +1,357 @@
+/*
+ * Compact path list for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * PathList is a compact immutable list of paths sorted in {@link #PATH_ORDER}.
+ * It is not a part of Go.
+ *
+ * Paths are front-coded: each path is stored as the length of the prefix
+ * it shares with the previous path plus the remaining characters.
+ * Characters of all paths are packed into a single array.
+ * Every {@value #BLOCK_SIZE}th path is stored in full,
+ * so that any path is decoded from at most {@value #BLOCK_SIZE} entries.
+ *
+ * Lists of paths returned by glob or visited by walk share long directory prefixes,
+ * and PathList keeps them once.
+ * Paths are decoded into new Strings on each access.
+ *
+ * Paths visited by {@link FilePath#walkDir} may be collected with {@link #builder()}.
+ *
+ * Instances are immutable and safe for use by multiple concurrent threads.
+ */
+public final class PathList extends AbstractList<String> implements RandomAccess {
+  /**
+   * Order of paths as returned by {@link FilePath#glob} and visited by {@link FilePath#walkDir}:
+   * paths are compared element by element, in lexical order of elements.
+   * It is lexical order with Separator sorted before all other characters,
+   * so that directory is followed by its contents.
+   */
+  public static final Comparator<String> PATH_ORDER = PathList::compare;
+
+  static final int BLOCK_SIZE = 16;
+
+  private static final PathList EMPTY = new PathList(0, new char[0], new int[] {0}, new int[0]);
+
+  private final int size;
+  /**
+   * Characters of paths, without shared prefixes
+   */
+  private final char[] chars;
+  /**
+   * Offsets of paths in chars. Path i ends at offsets[i + 1]
+   */
+  private final int[] offsets;
+  /**
+   * Length of prefix shared with the previous path
+   */
+  private final int[] shared;
+
+  private PathList(int size, char[] chars, int[] offsets, int[] shared) {
+    this.size = size;
+    this.chars = chars;
+    this.offsets = offsets;
+    this.shared = shared;
+  }
+
+  private static int key(char c) {
+    // Separator sorts first
+    return c == FilePath.SEPARATOR ? -1 : c;
+  }
+
+  private static int compare(String a, String b) {
+    final int n = Math.min(a.length(), b.length());
+    for (int i = 0; i < n; i++) {
+      final char ca = a.charAt(i);
+      final char cb = b.charAt(i);
+      if (ca != cb) {
+        return key(ca) - key(cb);
+      }
+    }
+    return a.length() - b.length();
+  }
+
+  /**
+   * Builder of PathList.
+   * Paths have to be added in {@link #PATH_ORDER}.
+   * It is not thread-safe.
+   */
+  public static final class Builder {
+    private int size;
+    private char[] chars = new char[64];
+    private int charsSize;
+    private int[] offsets = new int[17];
+    private int[] shared = new int[16];
+    private String last;
+
+    private Builder() {
+    }
+
+    /**
+     * add appends path to the list
+     *
+     * @param path
+     * @return this builder
+     * @throws IllegalArgumentException if path sorts before the previous path
+     */
+    public Builder add(String path) {
+      int prefix = 0;
+      if (last != null) {
+        if (compare(last, path) > 0) {
+          throw new IllegalArgumentException("paths are not sorted: " + path + " after " + last);
+        }
+        if (size % BLOCK_SIZE != 0) {
+          final int n = Math.min(last.length(), path.length());
+          while (prefix < n && last.charAt(prefix) == path.charAt(prefix)) {
+            prefix++;
+          }
+        }
+      }
+      if (size == shared.length) {
+        shared = Arrays.copyOf(shared, size * 2);
+        offsets = Arrays.copyOf(offsets, size * 2 + 1);
+      }
+      final int suffixLength = path.length() - prefix;
+      if (charsSize + suffixLength > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charsSize + suffixLength));
+      }
+      path.getChars(prefix, path.length(), chars, charsSize);
+      charsSize += suffixLength;
+      shared[size] = prefix;
+      size++;
+      offsets[size] = charsSize;
+      last = path;
+      return this;
+    }
+
+    /**
+     * addAll appends all paths to the list
+     *
+     * @param paths
+     * @return this builder
+     * @throws IllegalArgumentException if paths are not sorted
+     */
+    public Builder addAll(Iterator<String> paths) {
+      while (paths.hasNext()) {
+        add(paths.next());
+      }
+      return this;
+    }
+
+    public PathList build() {
+      if (size == 0) {
+        return EMPTY;
+      }
+      return new PathList(
+        size,
+        Arrays.copyOf(chars, charsSize),
+        Arrays.copyOf(offsets, size + 1),
+        Arrays.copyOf(shared, size)
+      );
+    }
+  }
+
+  /**
+   * Returns new builder
+   *
+   * @return
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * copyOf returns list of paths sorted in {@link #PATH_ORDER}
+   *
+   * @param paths
+   * @return
+   */
+  public static PathList copyOf(Collection<String> paths) {
+    if (paths instanceof PathList) {
+      return (PathList)paths;
+    }
+    final List<String> sorted = new ArrayList<>(paths);
+    sorted.sort(PATH_ORDER);
+    return builder().addAll(sorted.iterator()).build();
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * decode decodes path i into buf, which holds path i - 1 if i is not a start of block
+   *
+   * @param i
+   * @param buf
+   * @return buf with path i, possibly reallocated
+   */
+  private char[] decode(int i, char[] buf) {
+    final int prefix = shared[i];
+    final int low = offsets[i];
+    final int length = prefix + offsets[i + 1] - low;
+    if (length > buf.length) {
+      buf = Arrays.copyOf(buf, Math.max(length, buf.length * 2));
+    }
+    System.arraycopy(chars, low, buf, prefix, length - prefix);
+    return buf;
+  }
+
+  /**
+   * length returns length of path i
+   */
+  private int length(int i) {
+    return shared[i] + offsets[i + 1] - offsets[i];
+  }
+
+  @Override
+  public String get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    final int blockStart = index - index % BLOCK_SIZE;
+    char[] buf = new char[length(index)];
+    for (int i = blockStart; i <= index; i++) {
+      buf = decode(i, buf);
+    }
+    return new String(buf, 0, length(index));
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int i = 0;
+      private char[] buf = new char[64];
+
+      @Override
+      public boolean hasNext() {
+        return i < size;
+      }
+
+      @Override
+      public String next() {
+        if (i >= size) {
+          throw new NoSuchElementException();
+        }
+        buf = decode(i, buf);
+        final String result = new String(buf, 0, length(i));
+        i++;
+        return result;
+      }
+    };
+  }
+
+  /**
+   * compareAt compares path i, which is stored in full, with key in {@link #PATH_ORDER}
+   */
+  private int compareAt(int i, String key) {
+    final int low = offsets[i];
+    final int length = offsets[i + 1] - low;
+    final int n = Math.min(length, key.length());
+    for (int j = 0; j < n; j++) {
+      final char c = chars[low + j];
+      final char k = key.charAt(j);
+      if (c != k) {
+        return key(c) - key(k);
+      }
+    }
+    return length - key.length();
+  }
+
+  /**
+   * binarySearch searches the list for path,
+   * with the same contract as {@link java.util.Collections#binarySearch(List, Object, Comparator)}
+   * with {@link #PATH_ORDER}.
+   *
+   * @param path
+   * @return index of path if it is in the list; otherwise, (-(insertion point) - 1)
+   */
+  public int binarySearch(String path) {
+    // Find the last block starting with path not greater than the key
+    int lowBlock = 0;
+    int highBlock = (size + BLOCK_SIZE - 1) / BLOCK_SIZE - 1;
+    int block = -1;
+    while (lowBlock <= highBlock) {
+      final int mid = (lowBlock + highBlock) >>> 1;
+      final int cmp = compareAt(mid * BLOCK_SIZE, path);
+      if (cmp == 0) {
+        return mid * BLOCK_SIZE;
+      } else if (cmp < 0) {
+        block = mid;
+        lowBlock = mid + 1;
+      } else {
+        highBlock = mid - 1;
+      }
+    }
+    if (block == -1) {
+      return -1;
+    }
+    // Scan the block
+    final int blockStart = block * BLOCK_SIZE;
+    final int blockEnd = Math.min(blockStart + BLOCK_SIZE, size);
+    char[] buf = new char[64];
+    for (int i = blockStart; i < blockEnd; i++) {
+      buf = decode(i, buf);
+      final int cmp = compare(new String(buf, 0, length(i)), path);
+      if (cmp == 0) {
+        return i;
+      } else if (cmp > 0) {
+        return -i - 1;
+      }
+    }
+    return -blockEnd - 1;
+  }
+
+  @Override
+  public int indexOf(Object o) {
+    if (!(o instanceof String)) {
+      return -1;
+    }
+    final int i = binarySearch((String)o);
+    if (i < 0) {
+      return -1;
+    }
+    // Find the first of equal paths
+    int first = i;
+    while (first > 0 && get(first - 1).equals(o)) {
+      first--;
+    }
+    return first;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    return o instanceof String && binarySearch((String)o) >= 0;
+  }
+}
@@ -0,0 +1,286 @@
+/*
+ * Pattern set for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PatternSet is a set of shell file name patterns, as accepted by {@link FilePath#match},
+ * which can be matched against a name all at once. It is not a part of Go.
+ *
+ * Patterns are indexed by their literal prefix or suffix.
+ * Matching walks the name through the index once and then checks only
+ * patterns whose literal prefix or suffix is a part of the name,
+ * so the cost of matching doesn't grow with the number of patterns
+ * as long as most patterns start or end with literal characters.
+ * Patterns without meta characters are looked up in a hash map.
+ * Patterns without both literal prefix and suffix, like {@code ?*}, are checked one by one.
+ *
+ * Instances are immutable and safe for use by multiple concurrent threads.
+ */
+public final class PatternSet {
+  private static final int[] EMPTY = new int[0];
+
+  private final CompiledPattern[] patterns;
+  /**
+   * Patterns without meta characters, by name they match
+   */
+  private final Map<String, int[]> literals;
+  /**
+   * Trie of literal prefixes
+   */
+  private final Node prefixes;
+  /**
+   * Trie of reversed literal suffixes
+   */
+  private final Node suffixes;
+  /**
+   * Patterns which can't be indexed
+   */
+  private final int[] others;
+
+  /**
+   * Node of trie. Each node holds patterns with literal prefix or suffix
+   * equal to the path from the root
+   */
+  private static final class Node {
+    private char[] labels = new char[0];
+    private Node[] children = new Node[0];
+    private int[] patterns = EMPTY;
+
+    Node child(char c) {
+      final int i = Arrays.binarySearch(labels, c);
+      return i >= 0 ? children[i] : null;
+    }
+
+    Node addChild(char c) {
+      int i = Arrays.binarySearch(labels, c);
+      if (i >= 0) {
+        return children[i];
+      }
+      i = -i - 1;
+      final Node child = new Node();
+      labels = insert(labels, i, c);
+      final Node[] newChildren = new Node[children.length + 1];
+      System.arraycopy(children, 0, newChildren, 0, i);
+      newChildren[i] = child;
+      System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+      children = newChildren;
+      return child;
+    }
+
+    private static char[] insert(char[] a, int i, char c) {
+      final char[] result = new char[a.length + 1];
+      System.arraycopy(a, 0, result, 0, i);
+      result[i] = c;
+      System.arraycopy(a, i, result, i + 1, a.length - i);
+      return result;
+    }
+  }
+
+  private PatternSet(CompiledPattern[] patterns) {
+    this.patterns = patterns;
+    literals = new HashMap<>();
+    prefixes = new Node();
+    suffixes = new Node();
+    final List<Integer> others = new ArrayList<>();
+    for (int id = 0; id < patterns.length; id++) {
+      final CompiledPattern pattern = patterns[id];
+      final String prefix = pattern.literalPrefix();
+      final String suffix = pattern.literalSuffix();
+      if (pattern.isLiteral()) {
+        literals.merge(prefix, new int[] {id}, PatternSet::concat);
+      } else if (!prefix.isEmpty() && prefix.length() >= suffix.length()) {
+        Node node = prefixes;
+        for (int i = 0; i < prefix.length(); i++) {
+          node = node.addChild(prefix.charAt(i));
+        }
+        node.patterns = concat(node.patterns, new int[] {id});
+      } else if (!suffix.isEmpty()) {
+        Node node = suffixes;
+        for (int i = suffix.length() - 1; i >= 0; i--) {
+          node = node.addChild(suffix.charAt(i));
+        }
+        node.patterns = concat(node.patterns, new int[] {id});
+      } else {
+        others.add(id);
+      }
+    }
+    this.others = new int[others.size()];
+    for (int i = 0; i < this.others.length; i++) {
+      this.others[i] = others.get(i);
+    }
+  }
+
+  private static int[] concat(int[] a, int[] b) {
+    final int[] result = Arrays.copyOf(a, a.length + b.length);
+    System.arraycopy(b, 0, result, a.length, b.length);
+    return result;
+  }
+
+  /**
+   * compile parses all patterns.
+   *
+   * @param patterns
+   * @return
+   * @throws FilePath.ErrBadPattern if any pattern is malformed
+   */
+  public static PatternSet compile(String... patterns) {
+    return compile(Arrays.asList(patterns));
+  }
+
+  /**
+   * compile parses all patterns.
+   *
+   * @param patterns
+   * @return
+   * @throws FilePath.ErrBadPattern if any pattern is malformed
+   */
+  public static PatternSet compile(Collection<String> patterns) {
+    final CompiledPattern[] compiled = new CompiledPattern[patterns.size()];
+    int i = 0;
+    for (String pattern : patterns) {
+      compiled[i++] = FilePath.compile(pattern);
+    }
+    return new PatternSet(compiled);
+  }
+
+  /**
+   * Returns the number of patterns
+   *
+   * @return
+   */
+  public int size() {
+    return patterns.length;
+  }
+
+  /**
+   * Returns the source pattern with index i
+   *
+   * @param i
+   * @return
+   */
+  public String pattern(int i) {
+    return patterns[i].pattern();
+  }
+
+  /**
+   * matchIndices returns indices of all patterns matching name, in ascending order.
+   *
+   * @param name
+   * @return
+   * @see FilePath#match
+   */
+  public int[] matchIndices(final String name) {
+    final BitSet result = new BitSet(patterns.length);
+    match(name, result);
+    return result.stream().toArray();
+  }
+
+  /**
+   * matches returns all patterns matching name, in the order they were given to {@link #compile}.
+   *
+   * @param name
+   * @return
+   */
+  public List<String> matches(final String name) {
+    final ImmutableList.Builder<String> result = ImmutableList.builder();
+    for (int id : matchIndices(name)) {
+      result.add(patterns[id].pattern());
+    }
+    return result.build();
+  }
+
+  /**
+   * matchesAny reports whether name matches any pattern.
+   *
+   * @param name
+   * @return
+   */
+  public boolean matchesAny(final String name) {
+    return match(name, null);
+  }
+
+  /**
+   * match finds patterns matching name.
+   *
+   * @param name
+   * @param result set to add indices of matching patterns to,
+   * or null to stop at the first matching pattern
+   * @return whether any pattern matches
+   */
+  private boolean match(final String name, final BitSet result) {
+    boolean found = false;
+    final int[] literal = literals.get(name);
+    if (literal != null) {
+      if (result == null) {
+        return true;
+      }
+      for (int id : literal) {
+        result.set(id);
+      }
+      found = true;
+    }
+    final int nameHigh = name.length();
+    Node node = prefixes;
+    for (int i = 0; i < nameHigh && (node = node.child(name.charAt(i))) != null; i++) {
+      if (match(name, node.patterns, result)) {
+        if (result == null) {
+          return true;
+        }
+        found = true;
+      }
+    }
+    node = suffixes;
+    for (int i = nameHigh - 1; i >= 0 && (node = node.child(name.charAt(i))) != null; i--) {
+      if (match(name, node.patterns, result)) {
+        if (result == null) {
+          return true;
+        }
+        found = true;
+      }
+    }
+    return match(name, others, result) || found;
+  }
+
+  private boolean match(final String name, final int[] ids, final BitSet result) {
+    boolean found = false;
+    for (int id : ids) {
+      if (patterns[id].matches(name)) {
+        if (result == null) {
+          return true;
+        }
+        result.set(id);
+        found = true;
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,441 @@
+/*
+ * Watched glob for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+import com.google.common.collect.ImmutableList;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * WatchedGlob keeps the names of all files matching pattern up to date,
+ * as {@link FilePath#glob} would return them,
+ * using {@link WatchService} instead of repeated globs.
+ * It is not a part of Go.
+ *
+ * All directories which can contain matches or directories leading to them are watched.
+ * When an entry of such directory is created or deleted,
+ * only this entry is matched against the corresponding part of the pattern,
+ * and only new subdirectories are read.
+ * If events were lost, all directories are read again.
+ *
+ * Changes are reported to {@link Listener} from a background daemon thread,
+ * until the glob is closed.
+ * The leading part of pattern without meta characters has to be an existing directory.
+ * If it is deleted, all names are reported as removed, the glob is closed
+ * and its thread exits.
+ *
+ * Instances are safe for use by multiple concurrent threads.
+ */
+public final class WatchedGlob implements Closeable {
+  /**
+   * Listener of changes of the names matching pattern
+   */
+  @FunctionalInterface
+  public interface Listener {
+    /**
+     * changed is called with names which started or stopped matching pattern.
+     * At least one of lists is not empty.
+     * Names are sorted in {@link PathList#PATH_ORDER}.
+     *
+     * Exceptions thrown by this method are passed to the uncaught exception handler
+     * of the watching thread, and watching continues.
+     *
+     * @param added
+     * @param removed
+     */
+    void changed(List<String> added, List<String> removed);
+  }
+
+  private static final class Watched {
+    final String dir;
+    /**
+     * Index of the part of the pattern matching entries of dir
+     */
+    final int level;
+    final WatchKey key;
+
+    Watched(String dir, int level, WatchKey key) {
+      this.dir = dir;
+      this.level = level;
+      this.key = key;
+    }
+  }
+
+  private final String pattern;
+  /**
+   * Parts of pattern between separators, from the last one.
+   * Entries of directory at level i are matched against filePatterns[i]
+   */
+  private final CompiledPattern[] filePatterns;
+  /**
+   * The leading part of pattern without meta characters
+   */
+  private final String root;
+  private final Listener listener;
+  private final WatchService watcher;
+
+  private final NavigableSet<String> matches = new TreeSet<>(PathList.PATH_ORDER);
+  private final NavigableMap<String, Watched> watchedByDir = new TreeMap<>(PathList.PATH_ORDER);
+  private final Map<WatchKey, Watched> watchedByKey = new HashMap<>();
+  /*
+   * Changes not reported yet
+   */
+  private final Set<String> added = new LinkedHashSet<>();
+  private final Set<String> removed = new LinkedHashSet<>();
+
+  private WatchedGlob(String pattern, Listener listener) throws IOException {
+    this.pattern = pattern;
+    final List<CompiledPattern> filePatterns = new ArrayList<>();
+    FilePath.SplitGlobResult splitGlobResult = FilePath.splitGlob(pattern);
+    filePatterns.add(FilePath.compile(splitGlobResult.getFile()));
+    while (splitGlobResult.getDirHasMeta()) {
+      splitGlobResult = FilePath.splitGlob(splitGlobResult.getDir());
+      filePatterns.add(FilePath.compile(splitGlobResult.getFile()));
+    }
+    this.filePatterns = filePatterns.toArray(new CompiledPattern[0]);
+    this.root = splitGlobResult.getDir();
+    this.listener = listener;
+    this.watcher = NioDirReader.DEFAULT.getPath(root).getFileSystem().newWatchService();
+    try {
+      watch(root, this.filePatterns.length - 1);
+    } catch (IOException e) {
+      watcher.close();
+      throw e;
+    }
+    scan(root, this.filePatterns.length - 1);
+    added.clear();
+  }
+
+  /**
+   * watch finds the names of all files matching pattern
+   * and starts watching for their changes.
+   * listener is called only with changes after this call.
+   *
+   * @param pattern
+   * @param listener
+   * @return
+   * @throws FilePath.ErrBadPattern
+   * @throws IOException if the leading part of pattern without meta characters
+   * can't be watched
+   */
+  public static WatchedGlob watch(String pattern, Listener listener) throws IOException {
+    final WatchedGlob result = new WatchedGlob(pattern, listener);
+    final Thread thread = new Thread(result::run, "WatchedGlob " + pattern);
+    thread.setDaemon(true);
+    thread.start();
+    return result;
+  }
+
+  /**
+   * Returns the source pattern
+   *
+   * @return
+   */
+  public String pattern() {
+    return pattern;
+  }
+
+  /**
+   * matches returns the names of all files currently matching pattern,
+   * in the same order as glob
+   *
+   * @return
+   */
+  public synchronized List<String> matches() {
+    return ImmutableList.copyOf(matches);
+  }
+
+  /**
+   * close stops watching.
+   * listener is not called after this method returns,
+   * unless it is being called concurrently.
+   *
+   * @throws IOException
+   */
+  @Override
+  public void close() throws IOException {
+    watcher.close();
+  }
+
+  private void run() {
+    while (true) {
+      final WatchKey key;
+      try {
+        key = watcher.take();
+      } catch (ClosedWatchServiceException | InterruptedException e) {
+        return;
+      }
+      final List<String> addedNow;
+      final List<String> removedNow;
+      final boolean rootDeleted;
+      synchronized (this) {
+        if (process(key)) {
+          // Overflow is signalled on many keys at once.
+          // Keys already queued are drained, so that all directories are read again only once
+          try {
+            WatchKey next;
+            while ((next = watcher.poll()) != null) {
+              process(next);
+            }
+          } catch (ClosedWatchServiceException e) {
+            return;
+          }
+          rescan();
+        }
+        // Nothing is watched anymore only when root is not accessible
+        rootDeleted = watchedByDir.isEmpty();
+        if (added.isEmpty() && removed.isEmpty() && !rootDeleted) {
+          continue;
+        }
+        addedNow = sorted(added);
+        removedNow = sorted(removed);
+        added.clear();
+        removed.clear();
+      }
+      if (!addedNow.isEmpty() || !removedNow.isEmpty()) {
+        notifyListener(addedNow, removedNow);
+      }
+      if (rootDeleted) {
+        try {
+          watcher.close();
+        } catch (IOException ignored) {
+          // Thread exits anyway
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * notifyListener calls listener, so that its exceptions don't stop watching
+   *
+   * @param addedNow
+   * @param removedNow
+   */
+  private void notifyListener(List<String> addedNow, List<String> removedNow) {
+    try {
+      listener.changed(addedNow, removedNow);
+    } catch (RuntimeException e) {
+      final Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+  }
+
+  private static List<String> sorted(Set<String> names) {
+    return ImmutableList.sortedCopyOf(PathList.PATH_ORDER, names);
+  }
+
+  /**
+   * process records events of key
+   *
+   * @param key
+   * @return whether events of a watched directory were lost,
+   * so that all directories have to be read again
+   */
+  private boolean process(WatchKey key) {
+    final Watched watched = watchedByKey.get(key);
+    boolean overflow = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        // Keys cancelled by an earlier rescan are ignored
+        overflow = watched != null;
+      } else if (watched != null) {
+        final String name = event.context().toString();
+        if (filePatterns[watched.level].matches(name)) {
+          final String path = FilePath.join(watched.dir, name);
+          if (event.kind() == ENTRY_DELETE) {
+            remove(path, watched.level);
+          }
+          add(path, watched.level);
+        }
+      }
+    }
+    if (!key.reset() && watched != null) {
+      // Directory is not accessible anymore
+      unwatch(watched.dir);
+    }
+    return overflow;
+  }
+
+  /**
+   * add records entry of directory at level if it exists
+   *
+   * @param path
+   * @param level
+   */
+  private void add(String path, int level) {
+    if (level == 0) {
+      if (NioDirReader.DEFAULT.exists(path) && matches.add(path) && !removed.remove(path)) {
+        added.add(path);
+      }
+    } else if (!watchedByDir.containsKey(path) && Files.isDirectory(NioDirReader.DEFAULT.getPath(path))) {
+      try {
+        watch(path, level - 1);
+      } catch (IOException ignored) {
+        // Directory disappeared or can't be read, as glob ignores it
+        return;
+      }
+      scan(path, level - 1);
+    }
+  }
+
+  /**
+   * remove forgets path and everything under it
+   *
+   * @param path
+   * @param level
+   */
+  private void remove(String path, int level) {
+    if (level == 0) {
+      removeMatch(path);
+    } else {
+      unwatch(path);
+    }
+  }
+
+  private void removeMatch(String path) {
+    if (matches.remove(path) && !added.remove(path)) {
+      removed.add(path);
+    }
+  }
+
+  private void watch(String dir, int level) throws IOException {
+    final WatchKey key = NioDirReader.DEFAULT.getPath(dir).register(watcher, ENTRY_CREATE, ENTRY_DELETE);
+    final Watched watched = new Watched(dir, level, key);
+    watchedByDir.put(dir, watched);
+    watchedByKey.put(key, watched);
+  }
+
+  /**
+   * scan reads directory dir at level and its subdirectories
+   *
+   * @param dir
+   * @param level
+   */
+  private void scan(String dir, int level) {
+    for (String name : NioDirReader.DEFAULT.readDirNames(dir, filePatterns[level], level > 0)) {
+      add(FilePath.join(dir, name), level);
+    }
+  }
+
+  /**
+   * unwatch stops watching dir and all directories under it,
+   * and removes all matches under it
+   *
+   * @param dir
+   */
+  private void unwatch(String dir) {
+    if (dir.equals(root)) {
+      unwatchAll();
+      return;
+    }
+    final Iterator<Watched> watched = watchedByDir.tailMap(dir, true).values().iterator();
+    while (watched.hasNext()) {
+      final Watched w = watched.next();
+      if (!isUnder(w.dir, dir)) {
+        break;
+      }
+      w.key.cancel();
+      watchedByKey.remove(w.key);
+      watched.remove();
+    }
+    final Iterator<String> paths = matches.tailSet(dir, true).iterator();
+    while (paths.hasNext()) {
+      final String path = paths.next();
+      if (!isUnder(path, dir)) {
+        break;
+      }
+      paths.remove();
+      if (!added.remove(path)) {
+        removed.add(path);
+      }
+    }
+  }
+
+  private void unwatchAll() {
+    for (Watched w : watchedByDir.values()) {
+      w.key.cancel();
+    }
+    watchedByDir.clear();
+    watchedByKey.clear();
+    for (String path : matches) {
+      if (!added.remove(path)) {
+        removed.add(path);
+      }
+    }
+    matches.clear();
+  }
+
+  /**
+   * isUnder reports whether path is dir or is inside of it.
+   * In {@link PathList#PATH_ORDER} such paths follow dir contiguously
+   *
+   * @param path
+   * @param dir
+   * @return
+   */
+  private static boolean isUnder(String path, String dir) {
+    if (!path.startsWith(dir)) {
+      return false;
+    }
+    return path.length() == dir.length()
+      || path.charAt(dir.length()) == FilePath.SEPARATOR
+      || dir.charAt(dir.length() - 1) == FilePath.SEPARATOR;
+  }
+
+  /**
+   * rescan reads all directories again
+   */
+  private void rescan() {
+    unwatchAll();
+    try {
+      watch(root, filePatterns.length - 1);
+    } catch (IOException ignored) {
+      // Root is not accessible anymore
+      return;
+    }
+    scan(root, filePatterns.length - 1);
+  }
+
+  @Override
+  public String toString() {
+    return pattern;
+  }
+}
@@ -102,6 +102,24 @@ public final class Utf16 {
    * @exception  RuneError
    */
   public static DecodeRuneInStringResult decodeRuneInString(String s, int index) {
+    final int r = decodeRuneAt(s, index);
+    return ImmutableDecodeRuneInStringResult.of(r, Character.charCount(r));
+  }
+
+  /**
+   * DecodeRuneAt is like DecodeRuneInString but returns the rune only,
+   * so that no result object is allocated.
+   * Size of the rune is {@code Character.charCount(r)}.
+   *
+   * @param s
+   * @param index
+   * @return r
+   * @exception  IndexOutOfBoundsException  if the {@code index}
+   *             argument is negative or not less than the length of this
+   *             string.
+   * @exception  RuneError
+   */
+  public static int decodeRuneAt(String s, int index) {
     // Code copied from java.lang.Character#codePointAt(char[], int, int)
     // and java.lang.Character#codePointAtImpl(char[], int, int)
     // and changed to throw RuneError
@@ -116,13 +134,13 @@ public final class Utf16 {
       if (++index < limit) {
         char c2 = s.charAt(index);
         if (Character.isLowSurrogate(c2)) {
-          return ImmutableDecodeRuneInStringResult.of(Character.toCodePoint(c1, c2), 2);
+          return Character.toCodePoint(c1, c2);
         }
       }
       throw new RuneError();
     }
     // TOTEST: No other checks are required ?
-    return ImmutableDecodeRuneInStringResult.of((int)c1, 1);
+    return c1;
   }
 
   /**
@@ -0,0 +1,155 @@
+/*
+ * Java port of Go unicode/utf8 package
+ * Copyright ©  Basil Peace
+ * Copyright 2009 The Go Authors. All rights reserved.
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.unicode;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Go package {@code utf8} implements functions and constants to support text encoded in
+ * UTF-8. It includes functions to translate between runes and UTF-8 byte sequences.
+ *
+ * This class works with UTF-8 bytes in {@link ByteBuffer}s.
+ * For Strings see {@link Utf16}.
+ */
+/*
+ * Source files:
+ * src/unicode/utf8/utf8.go
+ */
+public final class Utf8 {
+  /**
+   * The "error" Rune or "Unicode replacement character"
+   */
+  public static final int RUNE_ERROR = '\uFFFD';
+
+  /**
+   * Maximum number of bytes of a UTF-8 encoded Unicode character
+   */
+  public static final int UTF_MAX = 4;
+
+  // The default lowest and highest continuation byte.
+  private static final int LOCB = 0x80;
+  private static final int HICB = 0xBF;
+
+  /**
+   * DecodeRune unpacks the first UTF-8 encoding in p[index:limit] and returns the rune.
+   *
+   * CAVEAT:
+   * Go function returns (rune, width) tuple.
+   * To be allocation-free, this method returns the rune only.
+   * If p[index:limit] is empty or the encoding is invalid, it returns -1
+   * instead of RuneError, which corresponds to Go (RuneError, 0) or (RuneError, 1).
+   * Width of valid rune is {@code runeLen(r)}, width of invalid encoding is 1.
+   *
+   * An encoding is invalid if it is incorrect UTF-8, encodes a rune that is
+   * out of range, or is not the shortest possible UTF-8 encoding for the
+   * value. No other validation is performed.
+   *
+   * @param p
+   * @param index absolute index in p
+   * @param limit absolute index in p
+   * @return r, or -1 if encoding is invalid
+   */
+  public static int decodeRune(final ByteBuffer p, final int index, final int limit) {
+    final int n = limit - index;
+    if (n < 1) {
+      return -1;
+    }
+    final int p0 = p.get(index) & 0xFF;
+    if (p0 < 0x80) {
+      return p0;
+    }
+    final int size;
+    int lo = LOCB;
+    int hi = HICB;
+    if (p0 < 0xC2) {
+      return -1;
+    } else if (p0 < 0xE0) {
+      size = 2;
+    } else if (p0 < 0xF0) {
+      size = 3;
+      if (p0 == 0xE0) {
+        lo = 0xA0;
+      } else if (p0 == 0xED) {
+        hi = 0x9F;
+      }
+    } else if (p0 < 0xF5) {
+      size = 4;
+      if (p0 == 0xF0) {
+        lo = 0x90;
+      } else if (p0 == 0xF4) {
+        hi = 0x8F;
+      }
+    } else {
+      return -1;
+    }
+    if (n < size) {
+      return -1;
+    }
+    final int b1 = p.get(index + 1) & 0xFF;
+    if (b1 < lo || hi < b1) {
+      return -1;
+    }
+    if (size == 2) {
+      return (p0 & 0x1F) << 6 | b1 & 0x3F;
+    }
+    final int b2 = p.get(index + 2) & 0xFF;
+    if (b2 < LOCB || HICB < b2) {
+      return -1;
+    }
+    if (size == 3) {
+      return (p0 & 0x0F) << 12 | (b1 & 0x3F) << 6 | b2 & 0x3F;
+    }
+    final int b3 = p.get(index + 3) & 0xFF;
+    if (b3 < LOCB || HICB < b3) {
+      return -1;
+    }
+    return (p0 & 0x07) << 18 | (b1 & 0x3F) << 12 | (b2 & 0x3F) << 6 | b3 & 0x3F;
+  }
+
+  /**
+   * RuneLen returns the number of bytes required to encode the rune.
+   * It returns -1 if the rune is not a valid value to encode in UTF-8.
+   *
+   * @param r
+   * @return
+   */
+  public static int runeLen(final int r) {
+    if (r < 0) {
+      return -1;
+    } else if (r < 0x80) {
+      return 1;
+    } else if (r < 0x800) {
+      return 2;
+    } else if (Character.MIN_SURROGATE <= r && r <= Character.MAX_SURROGATE) {
+      return -1;
+    } else if (r < 0x10000) {
+      return 3;
+    } else if (r <= Character.MAX_CODE_POINT) {
+      return 4;
+    }
+    return -1;
+  }
+
+  private Utf8() {}
+}
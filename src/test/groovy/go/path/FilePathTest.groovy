@@ -24,9 +24,9 @@
  */
 package go.path
 
-import static go.Runtime.GoOS.*
 import static go.path.FilePath.*
 import org.junit.rules.ExpectedException
+import org.junit.rules.TemporaryFolder
 import groovy.transform.CompileStatic
 import junitparams.JUnitParamsRunner
 import junitparams.Parameters
@@ -35,6 +35,21 @@ import org.junit.Test
 import org.junit.contrib.java.lang.system.EnvironmentVariables
 import org.junit.runner.RunWith
 import go.Runtime
+import go.Runtime.GoOS
+import java.lang.management.ManagementFactory
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import java.nio.file.FileSystem
+import java.nio.file.FileSystems
+import java.nio.file.Files
+import java.nio.file.InvalidPathException
+import java.nio.file.Paths
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+import java.util.stream.Collectors
+import java.util.stream.Stream
 
 @RunWith(JUnitParamsRunner)
 @CompileStatic
@@ -52,6 +67,9 @@ class FilePathTest {
   @Rule
   @SuppressWarnings('PublicInstanceField')
   public final EnvironmentVariables environmentVariables = new EnvironmentVariables()
+  @Rule
+  @SuppressWarnings('PublicInstanceField')
+  public final TemporaryFolder tmpDir = new TemporaryFolder()
 
   private static Object[] cleantests() {
     [
@@ -132,7 +150,7 @@ class FilePathTest {
   @Test
   @Parameters(method = 'cleantests')
   void testClean(String path, String result) {
-    if (Runtime.GOOS == WINDOWS) {
+    if (Runtime.GOOS == GoOS.WINDOWS) {
       result = fromSlash(result)
     }
     String s
@@ -144,6 +162,77 @@ class FilePathTest {
       sprintf("Clean(%s) = %s, want %s", result, s, result)
   }
 
+  @Test
+  @Parameters(method = 'cleantests')
+  void testCleanBuffers(String path, String result) {
+    if (Runtime.GOOS == GoOS.WINDOWS) {
+      result = fromSlash(result)
+    }
+    StringBuilder sb = new StringBuilder('prefix')
+    clean(new StringBuilder(path), sb)
+    assert sb.toString() == 'prefix' + result :
+      sprintf("Clean(%s) = %s, want %s", path, sb.substring(6), result)
+
+    char[] src = ('xy' + path).toCharArray()
+    char[] dst = new char[path.length() + 1]
+    int n = clean(src, 2, path.length(), dst)
+    assert new String(dst, 0, n) == result :
+      sprintf("Clean(%s) = %s, want %s", path, new String(dst, 0, n), result)
+
+    // in place
+    src = (path + ' ').toCharArray()
+    n = clean(src, 0, path.length(), src)
+    assert new String(src, 0, n) == result :
+      sprintf("Clean(%s) = %s, want %s", path, new String(src, 0, n), result)
+  }
+
+  @Test
+  @Parameters(method = 'wincleantests')
+  void testCleanBuffersWindows(String path, String result) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testCleanBuffers path, result
+  }
+
+  private static byte[] utf8(String s) {
+    s.getBytes(StandardCharsets.UTF_8)
+  }
+
+  private static String utf8(ByteBuffer b) {
+    StandardCharsets.UTF_8.decode(b.duplicate()).toString()
+  }
+
+  @Test
+  @Parameters(method = 'cleantests')
+  void testCleanBytes(String path, String result) {
+    if (Runtime.GOOS == GoOS.WINDOWS) {
+      result = fromSlash(result)
+    }
+    String s = new String(clean(utf8(path)), StandardCharsets.UTF_8)
+    assert s == result :
+      sprintf("Clean(%s) = %s, want %s", path, s, result)
+    byte[] bytes = utf8('x' + path)
+    ByteBuffer b = ByteBuffer.allocateDirect(bytes.length)
+    b.put(bytes).flip()
+    b.position(1)
+    s = utf8(clean(b))
+    assert s == result :
+      sprintf("Clean(%s) = %s, want %s", path, s, result)
+    assert b.position() == 1
+  }
+
+  @Test
+  @Parameters(method = 'wincleantests')
+  void testCleanBytesWindows(String path, String result) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testCleanBytes path, result
+  }
+
+  @Test
+  void testCleanNoCopy() {
+    String path = fromSlash('/abc/def')
+    assert clean(path).is(path)
+  }
+
   @Test
   @Parameters(method = 'wincleantests')
   void testCleanWindows(String path, String result) {
@@ -151,6 +240,121 @@ class FilePathTest {
     testClean path, result
   }
 
+  @Test
+  @Parameters(method = 'cleantests')
+  void testIsClean(String path, String result) {
+    for (FilePathFlavor flavor : [UNIX, WINDOWS]) {
+      String want = flavor.fromSlash(result)
+      assert flavor.isClean(want) :
+        sprintf('%s.IsClean(%s) = false, want true', flavor, want)
+      assert flavor.clean(want).is(want) :
+        sprintf('%s.Clean(%s) is a copy, want the same instance', flavor, want)
+      boolean c = flavor.isClean(path)
+      assert c == (path == want) :
+        sprintf('%s.IsClean(%s) = %s, want %s', flavor, path, c, path == want)
+    }
+  }
+
+  @Test
+  @Parameters(method = 'wincleantests')
+  void testIsCleanWindowsFlavor(String path, String result) {
+    boolean c = WINDOWS.isClean(path)
+    assert c == (path == result) :
+      sprintf('WINDOWS.IsClean(%s) = %s, want %s', path, c, path == result)
+    assert WINDOWS.isClean(result) :
+      sprintf('WINDOWS.IsClean(%s) = false, want true', result)
+  }
+
+  @Test
+  @Parameters(method = 'cleantests')
+  void testCleanBytesClean(String path, String result) {
+    result = fromSlash(result)
+    byte[] b = result.getBytes(StandardCharsets.UTF_8)
+    assert clean(b).is(b) :
+      sprintf('Clean(%s) is a copy, want the same array', result)
+    ByteBuffer bb = ByteBuffer.allocateDirect(b.length)
+    bb.put(b).flip()
+    ByteBuffer cleaned = clean(bb)
+    assert cleaned == bb
+    bb.put(0, (byte)'x')
+    assert cleaned.get(0) == (byte)'x' :
+      sprintf('Clean(%s) is a copy, want a slice', result)
+  }
+
+  @Test
+  void testCleanCleanDoesNotAllocate() {
+    // Clean paths like in BenchmarkFilePathClean, with a Windows one
+    int iterations = 10000
+    long allocated = 0L
+    // The first round initializes classes and compiles code
+    for (int round = 0; round < 2; round++) {
+      long before = allocatedBytes()
+      for (int i = 0; i < iterations; i++) {
+        UNIX.clean('src/main/java/go/path/FilePath.java')
+        UNIX.clean('/home/user/projects/go-java-port/build/classes/java/main/go/path/FilePathBytes$Lazybuf.class')
+        WINDOWS.clean('C:\\Users\\user\\projects\\go-java-port\\src\\main\\java\\go\\path\\FilePath.java')
+      }
+      allocated = allocatedBytes() - before
+    }
+    // Less than a byte per iteration leaves room for unrelated allocations of the runtime
+    assert allocated < iterations :
+      sprintf('Clean of clean Strings allocates %d bytes in %d iterations', allocated, iterations)
+  }
+
+  @Test
+  void testCleanAll() {
+    List<List> tests = cleantests().collect { Object it -> ((Object[])it).toList() }
+    // Large enough to be split across threads
+    String[] paths = (0..<10000).collect { int i -> (String)tests[i % tests.size()][0] }.toArray(new String[0])
+    for (FilePathFlavor flavor : [UNIX, WINDOWS]) {
+      String[] want = paths.collect { String path -> flavor.clean(path) }.toArray(new String[0])
+      String[] out = new String[paths.length]
+      flavor.cleanAll(paths, out)
+      assert out == want
+      for (int i = 0; i < paths.length; i++) {
+        if (paths[i] == want[i]) {
+          assert out[i].is(paths[i]) :
+            sprintf('%s.CleanAll: %s is a copy, want the same instance', flavor, paths[i])
+        }
+      }
+      assert flavor.cleanAll(Stream.of(paths)).collect(Collectors.toList()) == want.toList()
+      assert flavor.cleanAll(Stream.of(paths).parallel()).collect(Collectors.toList()) == want.toList()
+      String[] inPlace = paths.clone()
+      flavor.cleanAll(inPlace, inPlace)
+      assert inPlace == want
+    }
+  }
+
+  @Test
+  void testCleanAllOutTooShort() {
+    thrown.expect(IndexOutOfBoundsException)
+    cleanAll(new String[2], new String[1])
+  }
+
+  @Test
+  @Parameters(method = 'cleantests')
+  void testCleanFlavors(String path, String result) {
+    String s = UNIX.clean(path)
+    assert s == result :
+      sprintf("UNIX.Clean(%s) = %s, want %s", path, s, result)
+    String want = WINDOWS.fromSlash(result)
+    s = WINDOWS.clean(path)
+    assert s == want :
+      sprintf("WINDOWS.Clean(%s) = %s, want %s", path, s, want)
+  }
+
+  @Test
+  @Parameters(method = 'wincleantests')
+  void testCleanWindowsFlavor(String path, String result) {
+    String want = WINDOWS.fromSlash(result)
+    String s = WINDOWS.clean(path)
+    assert s == want :
+      sprintf("WINDOWS.Clean(%s) = %s, want %s", path, s, want)
+    s = WINDOWS.clean(want)
+    assert s == want :
+      sprintf("WINDOWS.Clean(%s) = %s, want %s", want, s, want)
+  }
+
   /*private static Object[] os() {
     [
       'Windows Fiction',
@@ -229,6 +433,33 @@ class FilePathTest {
     testSplit path, dir, file
   }
 
+  @Test
+  @Parameters(method = 'winsplittests')
+  void testSplitWindowsFlavor(String path, String dir, String file) {
+    SplitResult splitResult = WINDOWS.split(path)
+    String d = splitResult.dir
+    String f = splitResult.file
+    assert d == dir && f == file :
+      sprintf('WINDOWS.Split(%s) = %s, %s, want %s, %s', path, d, f, dir, file)
+  }
+
+  @Test
+  @Parameters(method = 'unixsplittests')
+  void testSplitBytes(String path, String dir, String file) {
+    ByteSplitResult splitResult = split(utf8(path))
+    String d = utf8(splitResult.dir)
+    String f = utf8(splitResult.file)
+    assert d == dir && f == file :
+      sprintf('Split(%s) = %s, %s, want %s, %s', path, d, f, dir, file)
+  }
+
+  @Test
+  @Parameters(method = 'winsplittests')
+  void testSplitBytesWindows(String path, String dir, String file) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testSplitBytes path, dir, file
+  }
+
   private static Object[] jointests() {
     [
       // zero parameters
@@ -300,6 +531,38 @@ class FilePathTest {
     testJoin elem, path
   }
 
+  @Test
+  @Parameters(method = 'jointests')
+  void testJoinUnixFlavor(List<String> elem, String path) {
+    String p = UNIX.join(elem.toArray(new String[0]))
+    assert p == path :
+      sprintf('UNIX.join(%s) = %s, want %s', elem, p, path)
+  }
+
+  @Test
+  @Parameters(method = 'winjointests')
+  void testJoinWindowsFlavor(List<String> elem, String path) {
+    String p = WINDOWS.join(elem.toArray(new String[0]))
+    assert p == path :
+      sprintf('WINDOWS.join(%s) = %s, want %s', elem, p, path)
+  }
+
+  @Test
+  @Parameters(method = 'jointests')
+  void testJoinBytes(List<String> elem, String path) {
+    String expected = fromSlash(path)
+    String p = new String(join(elem.collect { String e -> utf8(e) }.toArray(new byte[0][])), StandardCharsets.UTF_8)
+    assert p == expected :
+      sprintf('join(%s) = %s, want %s', elem, p, expected)
+  }
+
+  @Test
+  @Parameters(method = 'winjointests')
+  void testJoinBytesWindows(List<String> elem, String path) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testJoinBytes elem, path
+  }
+
   // Windows only
   @Test
   void testUNC() {
@@ -308,6 +571,358 @@ class FilePathTest {
     glob('\\\\?\\c:\\*')
   }
 
+  private static Object[] splitlisttests() {
+    [
+      ['', []],
+      ['a' + LIST_SEPARATOR + 'b', ['a', 'b']],
+      [LIST_SEPARATOR.toString() + 'a' + LIST_SEPARATOR + 'b', ['', 'a', 'b']],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  private static Object[] winsplitlisttests() {
+    [
+      // quoted
+      ['"a"', ['a']],
+
+      // semicolon
+      ['";"', [';']],
+      ['"a;b"', ['a;b']],
+      ['";";', [';', '']],
+      [';";"', ['', ';']],
+
+      // partially quoted
+      ['a";"b', ['a;b']],
+      ['a; ""b', ['a', ' b']],
+      ['"a;b', ['a;b']],
+      ['""a;b', ['a', 'b']],
+      ['"""a;b', ['a;b']],
+      ['""""a;b', ['a', 'b']],
+      ['a";b', ['a;b']],
+      ['a;b";c', ['a', 'b;c']],
+      ['"a";b";c', ['a', 'b;c']],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'splitlisttests')
+  void testSplitList(String list, List<String> result) {
+    List<String> l = splitList(list)
+    assert l == result :
+      sprintf('SplitList(%s) = %s, want %s', list.inspect(), l, result)
+  }
+
+  @Test
+  @Parameters(method = 'winsplitlisttests')
+  void testSplitListWindows(String list, List<String> result) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testSplitList list, result
+  }
+
+  @Test
+  @Parameters(method = 'winsplitlisttests')
+  void testSplitListWindowsFlavor(String list, List<String> result) {
+    List<String> l = WINDOWS.splitList(list)
+    assert l == result :
+      sprintf('WINDOWS.SplitList(%s) = %s, want %s', list.inspect(), l, result)
+  }
+
+  private static Object[] exttests() {
+    [
+      ['path.go', '.go'],
+      ['path.pb.go', '.go'],
+      ['a.dir/b', ''],
+      ['a.dir/b.go', '.go'],
+      ['a.dir/', ''],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'exttests')
+  void testExt(String path, String ext) {
+    String x = ext(path)
+    assert x == ext :
+      sprintf('Ext(%s) = %s, want %s', path.inspect(), x.inspect(), ext.inspect())
+    assert path.substring(extStart(path)) == ext
+  }
+
+  private static Object[] basetests() {
+    [
+      ['', '.'],
+      ['.', '.'],
+      ['/.', '.'],
+      ['/', '/'],
+      ['////', '/'],
+      ['x/', 'x'],
+      ['abc', 'abc'],
+      ['abc/def', 'def'],
+      ['a/b/.x', '.x'],
+      ['a/b/c.', 'c.'],
+      ['a/b/c.x', 'c.x'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  private static Object[] winbasetests() {
+    [
+      ['c:\\', '\\'],
+      ['c:.', '.'],
+      ['c:\\a\\b', 'b'],
+      ['c:a\\b', 'b'],
+      ['c:a\\b\\c', 'c'],
+      ['\\\\host\\share\\', '\\'],
+      ['\\\\host\\share\\a', 'a'],
+      ['\\\\host\\share\\a\\b', 'b'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'basetests')
+  void testBase(String path, String result) {
+    String s = toSlash(base(path))
+    assert s == toSlash(result) :
+      sprintf('Base(%s) = %s, want %s', path.inspect(), s.inspect(), result.inspect())
+    int baseStart = baseStart(path)
+    int baseEnd = baseEnd(path)
+    if (baseStart < baseEnd) {
+      assert path.substring(baseStart, baseEnd) == base(path)
+    }
+  }
+
+  @Test
+  @Parameters(method = 'winbasetests')
+  void testBaseWindows(String path, String result) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testBase path, result
+  }
+
+  @Test
+  @Parameters(method = 'winbasetests')
+  void testBaseWindowsFlavor(String path, String result) {
+    String s = WINDOWS.toSlash(WINDOWS.base(path))
+    assert s == WINDOWS.toSlash(result) :
+      sprintf('WINDOWS.Base(%s) = %s, want %s', path.inspect(), s.inspect(), result.inspect())
+  }
+
+  private static Object[] dirtests() {
+    [
+      ['', '.'],
+      ['.', '.'],
+      ['/.', '/'],
+      ['/', '/'],
+      ['////', '/'],
+      ['/foo', '/'],
+      ['x/', 'x'],
+      ['abc', '.'],
+      ['abc/def', 'abc'],
+      ['a/b/.x', 'a/b'],
+      ['a/b/c.', 'a/b'],
+      ['a/b/c.x', 'a/b'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  private static Object[] windirtests() {
+    [
+      ['c:\\', 'c:\\'],
+      ['c:.', 'c:.'],
+      ['c:\\a\\b', 'c:\\a'],
+      ['c:a\\b', 'c:a'],
+      ['c:a\\b\\c', 'c:a\\b'],
+      ['\\\\host\\share', '\\\\host\\share'],
+      ['\\\\host\\share\\', '\\\\host\\share\\'],
+      ['\\\\host\\share\\a', '\\\\host\\share\\'],
+      ['\\\\host\\share\\a\\b', '\\\\host\\share\\a'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'dirtests')
+  void testDir(String path, String result) {
+    String c = clean(result)
+    String s = dir(path)
+    assert s == c :
+      sprintf('Dir(%s) = %s, want %s', path.inspect(), s.inspect(), c.inspect())
+  }
+
+  @Test
+  @Parameters(method = 'windirtests')
+  void testDirWindows(String path, String result) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testDir path, result
+  }
+
+  @Test
+  @Parameters(method = 'windirtests')
+  void testDirWindowsFlavor(String path, String result) {
+    String c = WINDOWS.clean(result)
+    String s = WINDOWS.dir(path)
+    assert s == c :
+      sprintf('WINDOWS.Dir(%s) = %s, want %s', path.inspect(), s.inspect(), c.inspect())
+  }
+
+  private static Object[] isabstests() {
+    [
+      ['', false],
+      ['/', true],
+      ['/usr/bin/gcc', true],
+      ['..', false],
+      ['/a/../bb', true],
+      ['.', false],
+      ['./', false],
+      ['lala', false],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  private static Object[] winisabstests() {
+    List<List> tests = [
+      ['C:\\', true],
+      ['c\\', false],
+      ['c::', false],
+      ['c:', false],
+      ['/', false],
+      ['\\', false],
+      ['\\Windows', false],
+      ['c:a\\b', false],
+      ['c:\\a\\b', true],
+      ['c:/a/b', true],
+      ['\\\\host\\share\\foo', true],
+      ['//host/share/foo/bar', true],
+    ]
+    for (Object test : isabstests()) {
+      Object[] t = (Object[])test
+      // All non-windows tests should fail, because they have no volume letter.
+      tests.add([t[0], false])
+      // All non-windows test should work as intended if prefixed with volume letter.
+      tests.add(['c:' + t[0], t[1]])
+    }
+    tests.collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'isabstests')
+  void testIsAbs(String path, boolean isAbs) {
+    boolean r = isAbs(path)
+    assert r == isAbs :
+      sprintf('IsAbs(%s) = %s, want %s', path.inspect(), r, isAbs)
+  }
+
+  @Test
+  @Parameters(method = 'winisabstests')
+  void testIsAbsWindows(String path, boolean isAbs) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testIsAbs path, isAbs
+  }
+
+  @Test
+  @Parameters(method = 'winisabstests')
+  void testIsAbsWindowsFlavor(String path, boolean isAbs) {
+    boolean r = WINDOWS.isAbs(path)
+    assert r == isAbs :
+      sprintf('WINDOWS.IsAbs(%s) = %s, want %s', path.inspect(), r, isAbs)
+  }
+
+  private static List<List> reltestsList() {
+    [
+      ['a/b', 'a/b', '.'],
+      ['a/b/.', 'a/b', '.'],
+      ['a/b', 'a/b/.', '.'],
+      ['./a/b', 'a/b', '.'],
+      ['a/b', './a/b', '.'],
+      ['ab/cd', 'ab/cde', '../cde'],
+      ['ab/cd', 'ab/c', '../c'],
+      ['a/b', 'a/b/c/d', 'c/d'],
+      ['a/b', 'a/b/../c', '../c'],
+      ['a/b/../c', 'a/b', '../b'],
+      ['a/b/c', 'a/c/d', '../../c/d'],
+      ['a/b', 'c/d', '../../c/d'],
+      ['a/b/c/d', 'a/b', '../..'],
+      ['a/b/c/d', 'a/b/', '../..'],
+      ['a/b/c/d/', 'a/b', '../..'],
+      ['a/b/c/d/', 'a/b/', '../..'],
+      ['../../a/b', '../../a/b/c/d', 'c/d'],
+      ['/a/b', '/a/b', '.'],
+      ['/a/b/.', '/a/b', '.'],
+      ['/a/b', '/a/b/.', '.'],
+      ['/ab/cd', '/ab/cde', '../cde'],
+      ['/ab/cd', '/ab/c', '../c'],
+      ['/a/b', '/a/b/c/d', 'c/d'],
+      ['/a/b', '/a/b/../c', '../c'],
+      ['/a/b/../c', '/a/b', '../b'],
+      ['/a/b/c', '/a/c/d', '../../c/d'],
+      ['/a/b', '/c/d', '../../c/d'],
+      ['/a/b/c/d', '/a/b', '../..'],
+      ['/a/b/c/d', '/a/b/', '../..'],
+      ['/a/b/c/d/', '/a/b', '../..'],
+      ['/a/b/c/d/', '/a/b/', '../..'],
+      ['/../../a/b', '/../../a/b/c/d', 'c/d'],
+      ['.', 'a/b', 'a/b'],
+      ['.', '..', '..'],
+
+      // can't do purely lexically
+      ['..', '.', 'err'],
+      ['..', 'a', 'err'],
+      ['../..', '..', 'err'],
+      ['a', '/a', 'err'],
+      ['/a', 'a', 'err'],
+    ]
+  }
+
+  private static Object[] reltests() {
+    reltestsList().collect { it.toArray(new Object[3]) }.toArray()
+  }
+
+  private static Object[] winreltests() {
+    (reltestsList() + [
+      ['C:a\\b\\c', 'C:a/b/d', '..\\d'],
+      ['C:\\', 'D:\\', 'err'],
+      ['C:', 'D:', 'err'],
+      ['C:\\Projects', 'c:\\projects\\src', 'src'],
+      ['C:\\Projects', 'c:\\projects', '.'],
+      ['C:\\Projects\\a\\..', 'c:\\projects', '.'],
+    ]).collect { it.toArray(new Object[3]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'reltests')
+  void testRel(String root, String path, String want) {
+    String got
+    try {
+      got = rel(root, path)
+    } catch (IllegalArgumentException ignored) {
+      assert want == 'err' :
+        sprintf('Rel(%s, %s) throws, want %s', root.inspect(), path.inspect(), want.inspect())
+      return
+    }
+    assert want != 'err' :
+      sprintf('Rel(%s, %s) = %s, want error', root.inspect(), path.inspect(), got.inspect())
+    want = clean(want)
+    assert got == want :
+      sprintf('Rel(%s, %s) = %s, want %s', root.inspect(), path.inspect(), got.inspect(), want.inspect())
+  }
+
+  @Test
+  @Parameters(method = 'winreltests')
+  void testRelWindows(String root, String path, String want) {
+    environmentVariables.set('os.name', 'Windows Fiction')
+    testRel root, path, want
+  }
+
+  @Test
+  @Parameters(method = 'winreltests')
+  void testRelWindowsFlavor(String root, String path, String want) {
+    String got
+    try {
+      got = WINDOWS.rel(root, path)
+    } catch (IllegalArgumentException ignored) {
+      assert want == 'err' :
+        sprintf('WINDOWS.Rel(%s, %s) throws, want %s', root.inspect(), path.inspect(), want.inspect())
+      return
+    }
+    assert want != 'err' :
+      sprintf('WINDOWS.Rel(%s, %s) = %s, want error', root.inspect(), path.inspect(), got.inspect())
+    want = WINDOWS.clean(want)
+    assert got == want :
+      sprintf('WINDOWS.Rel(%s, %s) = %s, want %s', root.inspect(), path.inspect(), got.inspect(), want.inspect())
+  }
+
   private static Object[] matchTests() {
     [
       ['abc', 'abc', true, null],
@@ -370,7 +985,7 @@ class FilePathTest {
   @Test
   @Parameters(method = 'matchTests')
   void testMatch(String pattern, String s, boolean aMatch, Class<? extends Exception> err) {
-    if (Runtime.GOOS == WINDOWS) {
+    if (Runtime.GOOS == GoOS.WINDOWS) {
       if (pattern.contains("\\")) {
         // no escape allowed on windows.
         return
@@ -389,6 +1004,176 @@ class FilePathTest {
       sprintf('Match(%s, %s) = %s want %s', pattern.inspect(), s.inspect(), ok, aMatch)
   }
 
+  @Test
+  @Parameters(method = 'matchTests')
+  void testMatchWindowsFlavor(String pattern, String s, boolean aMatch, Class<? extends Exception> err) {
+    if (pattern.contains('\\')) {
+      // no escape allowed on windows.
+      return
+    }
+    pattern = WINDOWS.clean(pattern)
+    s = WINDOWS.clean(s)
+    boolean ok
+    try {
+      ok = WINDOWS.match(pattern, s)
+    } catch (ErrBadPattern e) {
+      assert err != null :
+        sprintf('WINDOWS.Match(%s, %s) throws %s', pattern.inspect(), s.inspect(), e)
+      return
+    }
+    assert err == null :
+      sprintf('WINDOWS.Match(%s, %s) succeeds, want %s', pattern.inspect(), s.inspect(), err)
+    assert ok == aMatch :
+      sprintf('WINDOWS.Match(%s, %s) = %s want %s', pattern.inspect(), s.inspect(), ok, aMatch)
+  }
+
+  /**
+   * allocatedBytes returns the number of bytes allocated by the current thread so far
+   */
+  private static long allocatedBytes() {
+    ((com.sun.management.ThreadMXBean)ManagementFactory.threadMXBean).currentThreadAllocatedBytes
+  }
+
+  @Test
+  void testMatchDoesNotAllocate() {
+    // The same patterns and names as in BenchmarkFilePathMatch
+    CompiledPattern compiled = compile('[a-z]*[0-9].[^t]*')
+    int iterations = 10000
+    long allocated = 0L
+    // The first round initializes classes and compiles code
+    for (int round = 0; round < 2; round++) {
+      long before = allocatedBytes()
+      for (int i = 0; i < iterations; i++) {
+        match('*.*.log', 'error.2019.05.21.log.gz')
+        match('access-*.log', 'access-2019-05-21.log')
+        match('a*b?c*x', 'abxbbxdbxebxczzx')
+        match('[a-z]*[0-9].[^t]*', 'error.2019.05.21.log.gz')
+        compiled.matches('access-2019-05-21.log')
+      }
+      allocated = allocatedBytes() - before
+    }
+    // Less than a byte per iteration leaves room for unrelated allocations of the runtime
+    assert allocated < iterations :
+      sprintf('Match allocates %d bytes in %d iterations', allocated, iterations)
+  }
+
+  @Test
+  @Parameters(method = 'matchTests')
+  void testMatchBytes(String pattern, String s, boolean aMatch, Class<? extends Exception> err) {
+    if (Runtime.GOOS == GoOS.WINDOWS) {
+      if (pattern.contains("\\")) {
+        // no escape allowed on windows.
+        return
+      }
+      pattern = clean(pattern)
+      s = clean(s)
+    }
+    if (err != null) {
+      thrown.expect(err)
+      thrown.reportMissingExceptionWithMessage(sprintf('Match(%s, %s) throws %%s want %s', pattern.inspect(), s.inspect(), err))
+    }
+    boolean ok = match(utf8(pattern), utf8(s))
+    assert ok == aMatch :
+      sprintf('Match(%s, %s) = %s want %s', pattern.inspect(), s.inspect(), ok, aMatch)
+  }
+
+  @Test
+  void testMatchBytesInvalidUtf8() {
+    // Invalid UTF-8 is decoded as RuneError of width 1, as in Go
+    assert match(utf8('?'), [(byte)0xFF] as byte[])
+    assert match(utf8('[^a]'), [(byte)0xC3] as byte[])
+    assert !match(utf8('??'), utf8('\u00E9'))
+  }
+
+  @Test
+  @Parameters(method = 'matchTests')
+  void testCompile(String pattern, String s, boolean aMatch, Class<? extends Exception> err) {
+    if (Runtime.GOOS == GoOS.WINDOWS) {
+      if (pattern.contains("\\")) {
+        // no escape allowed on windows.
+        return
+      }
+      pattern = clean(pattern)
+      s = clean(s)
+    }
+    CompiledPattern compiled
+    try {
+      compiled = compile(pattern)
+    } catch (ErrBadPattern ignored) {
+      // Compile validates the whole pattern, even the part Match doesn't reach
+      assert err != null || !aMatch :
+        sprintf('Compile(%s) throws ErrBadPattern, but Match(%s, %s) = %s', pattern.inspect(), pattern.inspect(), s.inspect(), aMatch)
+      return
+    }
+    assert err == null :
+      sprintf('Compile(%s) succeeds, want %s', pattern.inspect(), err)
+    boolean ok = compiled.matches(s)
+    assert ok == aMatch :
+      sprintf('Compile(%s).matches(%s) = %s want %s', pattern.inspect(), s.inspect(), ok, aMatch)
+  }
+
+  private static Object[] prefilterTests() {
+    [
+      ['access-*.log', 'access-.log', true],
+      ['access-*.log', 'access-2019.log.gz', false],
+      ['access-*.log', 'access.log', false],
+      ['*.tmp', '.tmp', true],
+      ['*.tmp', 'a.tm', false],
+      ['a*bc*bc', 'abcbc', true],
+      ['a*bc*bc', 'abcb', false],
+      ['a*b*c', 'acb', false],
+      ['a*xy*b', 'axyb', true],
+      ['a*xy*b', 'axb', false],
+      ['a?a', 'aaa', true],
+      ['a?a', 'aa', false],
+      ['a*a', 'a', false],
+      ['*x*', 'x', true],
+      ['*x*', '', false],
+      ['[a-c]*z', 'bz', true],
+    ].collect { it.toArray(new Object[3]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'prefilterTests')
+  void testCompilePrefilter(String pattern, String s, boolean aMatch) {
+    boolean ok = compile(pattern).matches(s)
+    assert ok == aMatch :
+      sprintf('Compile(%s).matches(%s) = %s want %s', pattern.inspect(), s.inspect(), ok, aMatch)
+    assert match(pattern, s) == aMatch
+  }
+
+  private static Object[] pathMatcherTests() {
+    [
+      ['goglob:*.log', '/var/log/access.log', true],
+      ['goglob:*.log', '/var/log/access.log.gz', false],
+      ['goglob:*.log', 'access.log', true],
+      ['goglob:log', '/var/log', true],
+      ['goglob:var/*/*.log', 'var/log/access.log', true],
+      ['goglob:var/*.log', 'var/log/access.log', false],
+      ['GoGlob:[a-c]*', 'b', true],
+      ['glob:**.log', 'var/log/access.log', true],
+    ].collect { it.toArray(new Object[3]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'pathMatcherTests')
+  void testGetPathMatcher(String syntaxAndPattern, String path, boolean aMatch) {
+    java.nio.file.Path p = Paths.get(fromSlash(path))
+    boolean ok = getPathMatcher(fromSlash(syntaxAndPattern)).matches(p)
+    assert ok == aMatch :
+      sprintf('GetPathMatcher(%s).matches(%s) = %s want %s', syntaxAndPattern.inspect(), path.inspect(), ok, aMatch)
+  }
+
+  @Test(expected = ErrBadPattern)
+  void testGetPathMatcherBadPattern() {
+    getPathMatcher('goglob:[')
+  }
+
+  @Test(expected = UnsupportedOperationException)
+  void testGetPathMatcherUnsupportedSyntax() {
+    getPathMatcher('goregex:.*')
+  }
+
 /*// contains returns true if vector contains the string s.
                   func contains(vector []string, s string) bool {
                     for _, elem := range vector {
@@ -411,7 +1196,7 @@ class FilePathTest {
 //  @Test
 //  @Parameters(method = 'globTests')
 //  void testGlob(String pattern, String result) {
-//    if (Runtime.GOOS == WINDOWS) {
+//    if (Runtime.GOOS == GoOS.WINDOWS) {
 //      pattern = clean(pattern)
 //      result = clean(result)
 //    }
@@ -438,6 +1223,365 @@ class FilePathTest {
     glob('[]')
   }
 
+  @Test
+  void testGlobErrorMissingDir() {
+    // CAVEAT: Go 1.12 doesn't match anything when the directory is missing, so it reports no error.
+    // File name part of the pattern is validated up front, as Go does since 1.16
+    thrown.expect(ErrBadPattern)
+    thrown.reportMissingExceptionWithMessage('expected error for bad pattern in missing directory; got none')
+    glob(join(tmpDir.root.path, 'missing', '[]'))
+  }
+
+  private void createGlobTree() {
+    for (String dir : ['a', 'ab', 'a-b', 'b/c', 'b/d']) {
+      tmpDir.newFolder(dir.split('/'))
+    }
+    for (String file : ['a/x.go', 'a/y.txt', 'ab/z.go', 'a-b/w.go', 'b/c/match.go', 'b/d/match.go', 'match.go']) {
+      tmpDir.newFile(file)
+    }
+  }
+
+  private static Object[] globTreeTests() {
+    [
+      'match.go',
+      'mat?h.go',
+      '*',
+      '*/*.go',
+      'a*/*',
+      'b/*/match.go',
+      '*/*/match.go',
+      'no_match',
+      '*/no_match',
+    ].toArray()
+  }
+
+  @Test
+  @Parameters(method = 'globTreeTests')
+  void testGlobStream(String pattern) {
+    createGlobTree()
+    String p = join(tmpDir.root.path, fromSlash(pattern))
+    List<String> want = glob(p) ?: []
+    List<String> have = globStream(p).collect(Collectors.toList())
+    assert have == want :
+      sprintf('GlobStream(%s) = %s want %s', p, have, want)
+  }
+
+  @Test
+  @Parameters(method = 'globTreeTests')
+  void testGlobParallel(String pattern) {
+    createGlobTree()
+    String p = join(tmpDir.root.path, fromSlash(pattern))
+    List<String> want = glob(p)
+    List<String> have = globParallel(p)
+    assert have == want :
+      sprintf('GlobParallel(%s) = %s want %s', p, have, want)
+  }
+
+  @Test
+  @Parameters(method = 'globTreeTests')
+  void testGlobLimit(String pattern) {
+    createGlobTree()
+    String p = join(tmpDir.root.path, fromSlash(pattern))
+    List<String> all = glob(p)
+    for (int limit : [1, 2, 3, 100]) {
+      List<String> want = all?.subList(0, Math.min(limit, all.size()))
+      List<String> have = glob(p, limit)
+      assert have == want :
+        sprintf('Glob(%s, %d) = %s want %s', p, limit, have, want)
+    }
+    String first = globFirst(p)
+    assert first == (all ? all[0] : null) :
+      sprintf('GlobFirst(%s) = %s want %s', p, first, all)
+    boolean exists = globExists(p)
+    assert exists == (all != null && !all.empty) :
+      sprintf('GlobExists(%s) = %s want %s', p, exists, all)
+  }
+
+  @Test(expected = IllegalArgumentException)
+  void testGlobLimitNotPositive() {
+    glob('*', 0)
+  }
+
+  @Test
+  @Parameters(method = 'globTreeTests')
+  void testGlobAsync(String pattern) {
+    createGlobTree()
+    String p = join(tmpDir.root.path, fromSlash(pattern))
+    List<String> want = glob(p)
+    List<String> have = globAsync(p).get()
+    assert have == want :
+      sprintf('GlobAsync(%s) = %s want %s', p, have, want)
+  }
+
+  @Test
+  void testGlobAsyncCancel() {
+    createGlobTree()
+    List<Runnable> tasks = []
+    CompletableFuture<List<String>> future = globAsync(join(tmpDir.root.path, fromSlash('*/*')), { Runnable task -> tasks.add(task) } as Executor)
+    assert future.cancel(false)
+    assert tasks.size() == 1
+    tasks[0].run()
+    assert future.cancelled
+  }
+
+  /**
+   * CountingDirReader counts directory reads and runs onRead before each of them
+   */
+  private static final class CountingDirReader implements DirReader {
+    int reads
+    Runnable onRead
+
+    @Override
+    boolean exists(String path) {
+      NioDirReader.DEFAULT.exists(path)
+    }
+
+    @Override
+    String[] readDirNames(String dir, CompiledPattern pattern, boolean dirsOnly) {
+      reads++
+      onRead.run()
+      NioDirReader.DEFAULT.readDirNames(dir, pattern, dirsOnly)
+    }
+  }
+
+  @Test
+  void testGlobAsyncCancelAfterFirstRead() {
+    createGlobTree()
+    List<Runnable> tasks = []
+    CountingDirReader reader = new CountingDirReader()
+    CompletableFuture<List<String>> future = globAsync(join(tmpDir.root.path, fromSlash('*/*/*')), reader, { Runnable task -> tasks.add(task) } as Executor)
+    reader.onRead = { future.cancel(false) } as Runnable
+    tasks[0].run()
+    assert future.cancelled
+    // The first read is of the root, by the innermost iterator.
+    // Outer iterators don't read directories after it
+    assert reader.reads == 1
+  }
+
+  @Test
+  void testGlobAsyncRejected() {
+    CompletableFuture<List<String>> future = globAsync('*', { Runnable task -> throw new RejectedExecutionException() } as Executor)
+    try {
+      future.get()
+      assert false : 'GlobAsync(*) succeeds, want RejectedExecutionException'
+    } catch (ExecutionException e) {
+      assert e.cause instanceof RejectedExecutionException
+    }
+  }
+
+  @Test
+  void testGlobAsyncBadPattern() {
+    CompletableFuture<List<String>> future = globAsync(fromSlash('*/['))
+    try {
+      future.get()
+      assert false : 'GlobAsync([) succeeds, want ErrBadPattern'
+    } catch (ExecutionException e) {
+      assert e.cause instanceof ErrBadPattern
+    }
+  }
+
+  @Test
+  void testGlobCache() {
+    createGlobTree()
+    String p = join(tmpDir.root.path, fromSlash('a/*'))
+    File dir = new File(tmpDir.root, 'a')
+    // Listing of a directory modified just before it was read is not reused
+    dir.setLastModified(System.currentTimeMillis() - 60000)
+    DirListingCache cache = new DirListingCache(16)
+    assert glob(p, cache) == glob(p)
+    assert glob(p, cache) == glob(p)
+    assert cache.missCount() == 1
+    assert cache.hitCount() == 1
+
+    new File(dir, 'new.go').createNewFile()
+    List<String> have = glob(p, cache)
+    assert have == glob(p)
+    assert have.contains(join(tmpDir.root.path, 'a', 'new.go'))
+    assert cache.missCount() == 2
+  }
+
+  @Test
+  void testGlobCacheRacy() {
+    createGlobTree()
+    String p = join(tmpDir.root.path, fromSlash('a/*'))
+    File dir = new File(tmpDir.root, 'a')
+    DirListingCache cache = new DirListingCache(16)
+    long modTime = dir.lastModified()
+    assert glob(p, cache) == glob(p)
+
+    // Modification within the same timestamp of the file system
+    new File(dir, 'new.go').createNewFile()
+    dir.setLastModified(modTime)
+    List<String> have = glob(p, cache)
+    assert have == glob(p)
+    assert have.contains(join(tmpDir.root.path, 'a', 'new.go'))
+    assert cache.hitCount() == 0
+  }
+
+  @Test
+  void testGlobCacheEviction() {
+    createGlobTree()
+    DirListingCache cache = new DirListingCache(1)
+    for (String pattern : ['a/*', 'ab/*', 'a/*']) {
+      String p = join(tmpDir.root.path, fromSlash(pattern))
+      assert glob(p, cache) == glob(p)
+    }
+    assert cache.missCount() == 3
+    assert cache.evictionCount() == 2
+    assert cache.size() == 1
+  }
+
+  private FileSystem createGlobZip() {
+    createGlobTree()
+    // Archive is created outside of the tree, so that it doesn't match the patterns
+    File zipFile = File.createTempFile('tree', '.zip')
+    zipFile.delete()
+    zipFile.deleteOnExit()
+    URI uri = URI.create('jar:' + zipFile.toURI())
+    FileSystem zip = FileSystems.newFileSystem(uri, [create: 'true'])
+    java.nio.file.Path root = tmpDir.root.toPath()
+    Stream<java.nio.file.Path> stream = Files.walk(root)
+    try {
+      stream.forEach { java.nio.file.Path path ->
+        if (path != root) {
+          Files.copy(path, zip.getPath(root.relativize(path).toString().replace(SEPARATOR, '/' as char)))
+        }
+      }
+    } finally {
+      stream.close()
+    }
+    zip
+  }
+
+  private List<String> relativeGlob(String pattern) {
+    List<String> result = glob(join(tmpDir.root.path, fromSlash(pattern)))
+    if (result == null) {
+      return null
+    }
+    result.collect { String path -> rel(tmpDir.root.path, path) }
+  }
+
+  @Test
+  @Parameters(method = 'globTreeTests')
+  void testGlobFileSystem(String pattern) {
+    FileSystem zip = createGlobZip()
+    try {
+      String p = fromSlash(pattern)
+      List<String> want = relativeGlob(pattern)
+      List<String> have = glob(zip, p)
+      assert have == want :
+        sprintf('Glob(zip, %s) = %s want %s', p, have, want)
+      have = globStream(zip, p).collect(Collectors.toList())
+      assert have == (want ?: []) :
+        sprintf('GlobStream(zip, %s) = %s want %s', p, have, want)
+    } finally {
+      zip.close()
+    }
+  }
+
+  @Test
+  @Parameters(method = 'globTreeTests')
+  void testGlobRoot(String pattern) {
+    createGlobTree()
+    String p = fromSlash(pattern)
+    List<String> want = relativeGlob(pattern)
+    List<String> have = glob(tmpDir.root.toPath(), p)
+    assert have == want :
+      sprintf('Glob(%s, %s) = %s want %s', tmpDir.root, p, have, want)
+  }
+
+  @Test
+  void testGlobRootEscape() {
+    createGlobTree()
+    java.nio.file.Path root = tmpDir.root.toPath().resolve('b')
+    for (String pattern : [fromSlash('../*'), fromSlash('../a/*'), join(tmpDir.root.path, 'a', '*'), '..']) {
+      List<String> have = glob(root, pattern)
+      assert !have :
+        sprintf('Glob(%s, %s) = %s want nothing', root, pattern, have)
+    }
+    String p = fromSlash('c/../d/*')
+    List<String> have = glob(root, p)
+    assert have == [fromSlash('d/match.go')] :
+      sprintf('Glob(%s, %s) = %s', root, p, have)
+  }
+
+  @Test
+  void testWalkDirInvalidPath() {
+    List<IOException> errs = []
+    walkDir('invalid\u0000path', { String path, DirEntry d, IOException err ->
+      assert d == null
+      errs.add(err)
+    } as WalkDirFunc)
+    assert errs.size() == 1 && errs[0].cause instanceof InvalidPathException
+  }
+
+  @Test
+  void testWalkDirFileSystem() {
+    FileSystem zip = createGlobZip()
+    try {
+      List<String> have = []
+      walkDir(zip, fromSlash('b'), { String path, DirEntry d, IOException err ->
+        assert err == null
+        have.add(toSlash(path))
+      } as WalkDirFunc)
+      assert have == ['b', 'b/c', 'b/c/match.go', 'b/d', 'b/d/match.go']
+    } finally {
+      zip.close()
+    }
+  }
+
+  private static Object[] walkDirTests() {
+    [
+      [null, ['', 'a', 'a/x.go', 'a/y.txt', 'a-b', 'a-b/w.go', 'ab', 'ab/z.go', 'b', 'b/c', 'b/c/match.go', 'b/d', 'b/d/match.go', 'match.go']],
+      // SkipDir on directory skips its contents
+      ['b', ['', 'a', 'a/x.go', 'a/y.txt', 'a-b', 'a-b/w.go', 'ab', 'ab/z.go', 'b', 'match.go']],
+      // SkipDir on file skips the rest of directory
+      ['a/x.go', ['', 'a', 'a/x.go', 'a-b', 'a-b/w.go', 'ab', 'ab/z.go', 'b', 'b/c', 'b/c/match.go', 'b/d', 'b/d/match.go', 'match.go']],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  private void testWalkDir(String skip, List<String> want, boolean concurrent) {
+    createGlobTree()
+    String root = tmpDir.root.path
+    List<String> have = []
+    WalkDirFunc fn = { String path, DirEntry d, IOException err ->
+      assert err == null
+      have.add(toSlash(path.substring(root.length())).replaceFirst('^/', ''))
+      if (skip != null && path == join(root, fromSlash(skip))) {
+        throw SKIP_DIR
+      }
+    } as WalkDirFunc
+    if (concurrent) {
+      walkDirConcurrent root, fn
+    } else {
+      walkDir root, fn
+    }
+    assert have == want
+  }
+
+  @Test
+  @Parameters(method = 'walkDirTests')
+  void testWalkDir(String skip, List<String> want) {
+    testWalkDir skip, want, false
+  }
+
+  @Test
+  @Parameters(method = 'walkDirTests')
+  void testWalkDirConcurrent(String skip, List<String> want) {
+    testWalkDir skip, want, true
+  }
+
+  @Test
+  void testWalkDirRootError() {
+    String root = join(tmpDir.root.path, 'no_such_dir')
+    List<String> have = []
+    walkDir(root, { String path, DirEntry d, IOException err ->
+      assert d == null && err != null
+      have.add(path)
+    } as WalkDirFunc)
+    assert have == [root]
+  }
+
   @Test
   void testGlobUNC() {
     // Just make sure this runs without crashing for now.
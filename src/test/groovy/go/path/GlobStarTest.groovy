@@ -0,0 +1,133 @@
+#!/usr/bin/env groovy
+/*
+ * Tests for extended glob for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path
+
+import static go.path.FilePath.*
+import groovy.transform.CompileStatic
+import junitparams.JUnitParamsRunner
+import junitparams.Parameters
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+
+@RunWith(JUnitParamsRunner)
+@CompileStatic
+class GlobStarTest {
+  /*
+   * WORKAROUND:
+   * Otherwise we have error:
+   * initializationError
+   * org.junit.internal.runners.rules.ValidationError: The @Rule 'tmpDir' must be public.
+   * <grv87 2019-01-15>
+   */
+  @Rule
+  @SuppressWarnings('PublicInstanceField')
+  public final TemporaryFolder tmpDir = new TemporaryFolder()
+
+  private static Object[] matchTests() {
+    [
+      ['**', 'a', true],
+      ['**', 'a/b/c', true],
+      ['a/**', 'a', true],
+      ['a/**', 'a/b/c', true],
+      ['a/**', 'b/c', false],
+      ['a/**/b', 'a/b', true],
+      ['a/**/b', 'a/x/y/b', true],
+      ['a/**/b', 'a/x/y/c', false],
+      ['**/*.go', 'match.go', true],
+      ['**/*.go', 'a/b/match.go', true],
+      ['**/*.go', 'a/b/match.txt', false],
+      ['a/**/b/**/c', 'a/b/c', true],
+      ['a/**/b/**/c', 'a/x/b/y/z/c', true],
+      ['a/**/b/**/c', 'a/x/c/y/b', false],
+      ['a**b', 'axxb', true],
+      ['a**b', 'ax/xb', false],
+      ['/a/**', '/a/b', true],
+      ['/a/**', 'a/b', false],
+      ['a/./b', 'a/b', true],
+      ['a//b', 'a/./b', true],
+      ['a/../b/*', 'a/../b/x', true],
+      ['a/../b/*', 'b/x', false],
+    ].collect { it.toArray(new Object[3]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'matchTests')
+  void testMatches(String pattern, String path, boolean aMatch) {
+    boolean ok = GlobStar.compile(fromSlash(pattern)).matches(fromSlash(path))
+    assert ok == aMatch :
+      sprintf('GlobStar(%s).matches(%s) = %s want %s', pattern.inspect(), path.inspect(), ok, aMatch)
+  }
+
+  @Test(expected = ErrBadPattern)
+  void testCompileError() {
+    GlobStar.compile('a/**/[]')
+  }
+
+  private static Object[] globTests() {
+    [
+      ['**/*.go', ['a/b/c.go', 'a/x.go', 'b/d/e.go', 'match.go']],
+      ['a/**', ['a', 'a/b', 'a/b/c.go', 'a/x.go', 'a/y.txt']],
+      ['*/**/e.go', ['b/d/e.go']],
+      ['**/no_match', []],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'globTests')
+  void testGlob(String pattern, List<String> matches) {
+    for (String dir : ['a/b', 'b/d']) {
+      tmpDir.newFolder(dir.split('/'))
+    }
+    for (String file : ['a/b/c.go', 'a/x.go', 'a/y.txt', 'b/d/e.go', 'match.go']) {
+      tmpDir.newFile(file)
+    }
+    String root = tmpDir.root.path
+    List<String> want = matches.collect { String m -> join(root, fromSlash(m)) }
+    List<String> have = GlobStar.compile(join(root, fromSlash(pattern))).glob()
+    assert have == want :
+      sprintf('GlobStar(%s).glob() = %s want %s', pattern.inspect(), have, want)
+  }
+
+  @Test
+  void testGlobDotDot() {
+    for (String dir : ['a/b', 'b/d']) {
+      tmpDir.newFolder(dir.split('/'))
+    }
+    String root = tmpDir.root.path + SEPARATOR
+    // .. is matched literally, and resolved by the file system
+    GlobStar globStar = GlobStar.compile(root + fromSlash('a/../b/*'))
+    List<String> have = globStar.glob()
+    List<String> want = [root + fromSlash('a/../b/d')]
+    assert have == want :
+      sprintf('GlobStar(%s).glob() = %s want %s', globStar, have, want)
+    assert have.every { String path -> globStar.matches(path) }
+
+    globStar = GlobStar.compile(root + fromSlash('z/../b/*'))
+    have = globStar.glob()
+    assert have.empty :
+      sprintf('GlobStar(%s).glob() = %s want []', globStar, have)
+  }
+}
@@ -0,0 +1,106 @@
+#!/usr/bin/env groovy
+/*
+ * Tests for in-memory path index for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path
+
+import static go.path.FilePath.*
+import groovy.transform.CompileStatic
+import junitparams.JUnitParamsRunner
+import junitparams.Parameters
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+import java.nio.file.Files
+import java.nio.file.Path
+import java.util.stream.Collectors
+import java.util.stream.Stream
+
+@RunWith(JUnitParamsRunner)
+@CompileStatic
+class PathIndexTest {
+  /*
+   * WORKAROUND:
+   * Otherwise we have error:
+   * initializationError
+   * org.junit.internal.runners.rules.ValidationError: The @Rule 'tmpDir' must be public.
+   * <grv87 2019-01-15>
+   */
+  @Rule
+  @SuppressWarnings('PublicInstanceField')
+  public final TemporaryFolder tmpDir = new TemporaryFolder()
+
+  private static Object[] globTests() {
+    [
+      'match.go',
+      'mat?h.go',
+      '*',
+      '*/*.go',
+      'a*/*',
+      'a*/x.go',
+      'b/*/match.go',
+      '*/*/match.go',
+      '*/*/*',
+      'no_match',
+      '*/no_match',
+      'match.go/*',
+    ].toArray()
+  }
+
+  @Test
+  @Parameters(method = 'globTests')
+  void testGlob(String pattern) {
+    for (String dir : ['a', 'ab', 'a-b', 'b/c', 'b/d']) {
+      tmpDir.newFolder(dir.split('/'))
+    }
+    for (String file : ['a/x.go', 'a/y.txt', 'ab/z.go', 'a-b/w.go', 'b/c/match.go', 'b/d/match.go', 'match.go']) {
+      tmpDir.newFile(file)
+    }
+    List<String> paths
+    Stream<Path> stream = Files.walk(tmpDir.root.toPath())
+    try {
+      paths = stream.map { Path path -> path.toString() }.collect(Collectors.toList())
+    } finally {
+      stream.close()
+    }
+    Collections.shuffle(paths)
+    PathIndex index = PathIndex.of(paths)
+
+    String p = join(tmpDir.root.path, fromSlash(pattern))
+    List<String> want = glob(p)
+    List<String> have = index.glob(p)
+    assert have == want :
+      sprintf('PathIndex.glob(%s) = %s want %s', p, have, want)
+  }
+
+  @Test
+  void testRelative() {
+    PathIndex index = PathIndex.of([fromSlash('a/b/c.go'), fromSlash('./a/d.go'), 'x'])
+    assert index.glob('*') == ['a', 'x']
+    assert index.glob(fromSlash('*/*.go')) == [fromSlash('a/d.go')]
+    assert index.contains(fromSlash('a/b'))
+    assert index.isDir(fromSlash('a/b'))
+    assert !index.isDir('x')
+    assert !index.contains('y')
+  }
+}
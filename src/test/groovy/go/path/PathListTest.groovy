@@ -0,0 +1,126 @@
+#!/usr/bin/env groovy
+/*
+ * Tests for compact path list for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path
+
+import static go.path.FilePath.*
+import groovy.transform.CompileStatic
+import junitparams.JUnitParamsRunner
+import junitparams.Parameters
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.junit.runner.RunWith
+
+@RunWith(JUnitParamsRunner)
+@CompileStatic
+class PathListTest {
+  /*
+   * WORKAROUND:
+   * Otherwise we have error:
+   * initializationError
+   * org.junit.internal.runners.rules.ValidationError: The @Rule 'tmpDir' must be public.
+   * <grv87 2019-01-15>
+   */
+  @Rule
+  @SuppressWarnings('PublicInstanceField')
+  public final TemporaryFolder tmpDir = new TemporaryFolder()
+
+  private static List<String> paths() {
+    List<String> result = []
+    for (String dir : ['a', 'a-b', 'ab', 'b/c', 'b/d']) {
+      for (int i = 0; i < 20; i++) {
+        result.add(fromSlash(sprintf('%s/file%02d.go', dir, i)))
+      }
+    }
+    result
+  }
+
+  @Test
+  void testPathOrder() {
+    List<String> sorted = [fromSlash('a/x'), fromSlash('a-b/y'), fromSlash('ab/z'), 'ab']
+    sorted.sort(PathList.PATH_ORDER)
+    assert sorted == [fromSlash('a/x'), fromSlash('a-b/y'), 'ab', fromSlash('ab/z')]
+  }
+
+  @Test
+  void testGet() {
+    List<String> paths = paths()
+    PathList list = PathList.copyOf(paths.reverse())
+    assert list.size() == paths.size()
+    for (int i = 0; i < paths.size(); i++) {
+      assert list.get(i) == paths[i] :
+        sprintf('PathList.get(%d) = %s want %s', i, list.get(i), paths[i])
+    }
+    assert list.toList() == paths
+  }
+
+  private static Object[] binarySearchTests() {
+    [
+      ['a/file00.go', 0],
+      ['a/file19.go', 19],
+      ['a-b/file16.go', 36],
+      ['b/d/file19.go', 99],
+      ['', -1],
+      ['a', -1],
+      ['a/file20.go', -21],
+      ['ab/file', -41],
+      ['c', -101],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'binarySearchTests')
+  void testBinarySearch(String path, int want) {
+    PathList list = PathList.copyOf(paths())
+    int have = list.binarySearch(fromSlash(path))
+    assert have == want :
+      sprintf('PathList.binarySearch(%s) = %d want %d', path, have, want)
+    assert list.contains(fromSlash(path)) == (want >= 0)
+  }
+
+  @Test(expected = IllegalArgumentException)
+  void testBuilderUnsorted() {
+    PathList.builder().add('b').add('a')
+  }
+
+  @Test
+  void testGlobPathList() {
+    for (String dir : ['a', 'ab', 'a-b', 'b/c', 'b/d']) {
+      tmpDir.newFolder(dir.split('/'))
+    }
+    for (String file : ['a/x.go', 'a/y.txt', 'ab/z.go', 'a-b/w.go', 'b/c/match.go', 'b/d/match.go', 'match.go']) {
+      tmpDir.newFile(file)
+    }
+    for (String pattern : ['*', '*/*.go', '*/*/match.go', 'no_match']) {
+      String p = join(tmpDir.root.path, fromSlash(pattern))
+      List<String> want = glob(p)
+      if (want == null) {
+        want = []
+      }
+      PathList have = globPathList(p)
+      assert have == want :
+        sprintf('globPathList(%s) = %s want %s', p, have, want)
+    }
+  }
+}
@@ -0,0 +1,348 @@
+#!/usr/bin/env groovy
+/*
+ * Tests for Java port of Go path package
+ * Copyright ©  Basil Peace
+ * Copyright 2009 The Go Authors. All rights reserved.
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path
+
+import static go.path.Path.*
+import groovy.transform.CompileStatic
+import junitparams.JUnitParamsRunner
+import junitparams.Parameters
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.ExpectedException
+import org.junit.runner.RunWith
+
+@RunWith(JUnitParamsRunner)
+@CompileStatic
+class PathTest {
+  /*
+   * WORKAROUND:
+   * Otherwise we have error:
+   * initializationError
+   * org.junit.internal.runners.rules.ValidationError: The @Rule 'thrown' must be public.
+   * <grv87 2019-01-15>
+   */
+  @Rule
+  @SuppressWarnings('PublicInstanceField')
+  public final ExpectedException thrown = ExpectedException.none()
+
+  private static Object[] cleantests() {
+    [
+      // Already clean
+      ['abc', 'abc'],
+      ['abc/def', 'abc/def'],
+      ['a/b/c', 'a/b/c'],
+      ['.', '.'],
+      ['..', '..'],
+      ['../..', '../..'],
+      ['../../abc', '../../abc'],
+      ['/abc', '/abc'],
+      ['/', '/'],
+  
+      // Empty is current dir
+      ['', '.'],
+  
+      // Remove trailing slash
+      ['abc/', 'abc'],
+      ['abc/def/', 'abc/def'],
+      ['a/b/c/', 'a/b/c'],
+      ['./', '.'],
+      ['../', '..'],
+      ['../../', '../..'],
+      ['/abc/', '/abc'],
+  
+      // Remove doubled slash
+      ['abc//def//ghi', 'abc/def/ghi'],
+      ['//abc', '/abc'],
+      ['///abc', '/abc'],
+      ['//abc//', '/abc'],
+      ['abc//', 'abc'],
+  
+      // Remove . elements
+      ['abc/./def', 'abc/def'],
+      ['/./abc/def', '/abc/def'],
+      ['abc/.', 'abc'],
+  
+      // Remove .. elements
+      ['abc/def/ghi/../jkl', 'abc/def/jkl'],
+      ['abc/def/../ghi/../jkl', 'abc/jkl'],
+      ['abc/def/..', 'abc'],
+      ['abc/def/../..', '.'],
+      ['/abc/def/../..', '/'],
+      ['abc/def/../../..', '..'],
+      ['/abc/def/../../..', '/'],
+      ['abc/def/../../../ghi/jkl/../../../mno', '../../mno'],
+      ['/../abc', '/abc'],
+
+      // Backslashes are not separators
+      ['a\\b/../c', 'c'],
+      ['a\\..\\b', 'a\\..\\b'],
+      ['c:\\abc\\', 'c:\\abc\\'],
+      ['//host/share/foo/../bar', '/host/share/bar'],
+  
+      // Combinations
+      ['abc/./../def', 'def'],
+      ['abc//./../def', 'def'],
+      ['abc/../../././../def', '../../def'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'cleantests')
+  void testClean(String path, String result) {
+    String s
+    s = clean(path)
+    assert s == result :
+      sprintf("Clean(%s) = %s, want %s", path, s, result)
+    s = clean(result)
+    assert s == result :
+      sprintf("Clean(%s) = %s, want %s", result, s, result)
+    assert s.is(result) :
+      sprintf("Clean(%s) is a copy, want the same instance", result)
+  }
+
+  private static Object[] splittests() {
+    [
+      ['a/b', 'a/', 'b'],
+      ['a/b/', 'a/b/', ''],
+      ['a/', 'a/', ''],
+      ['a', '', 'a'],
+      ['/', '/', ''],
+      ['a\\b', '', 'a\\b'],
+    ].collect { it.toArray(new Object[3]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'splittests')
+  void testSplit(String path, String dir, String file) {
+    FilePath.SplitResult splitResult = split(path)
+    String d = splitResult.dir
+    String f = splitResult.file
+    assert d == dir && f == file :
+      sprintf('Split(%s) = %s, %s, want %s, %s', path, d, f, dir, file)
+  }
+
+  private static Object[] jointests() {
+    [
+      // zero parameters
+      [[], ''],
+
+      // one parameter
+      [[''], ''],
+      [['a'], 'a'],
+
+      // two parameters
+      [['a', 'b'], 'a/b'],
+      [['a', ''], 'a'],
+      [['', 'b'], 'b'],
+      [['/', 'a'], '/a'],
+      [['/', ''], '/'],
+      [['a/', 'b'], 'a/b'],
+      [['a/', ''], 'a'],
+      [['', ''], ''],
+
+      // three parameters
+      [['a', 'b', 'c'], 'a/b/c'],
+      [['a', '', 'c'], 'a/c'],
+      [['', 'b', '..'], '.'],
+      [['c:', 'a\\b'], 'c:/a\\b'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'jointests')
+  void testJoin(List<String> elem, String path) {
+    String p = join(elem.toArray(new String[0]))
+    assert p == path :
+      sprintf('join(%s) = %s, want %s', elem, p, path)
+  }
+
+  private static Object[] exttests() {
+    [
+      ['path.go', '.go'],
+      ['path.pb.go', '.go'],
+      ['a.dir/b', ''],
+      ['a.dir/b.go', '.go'],
+      ['a.dir/', ''],
+      ['a.dir\\b', '.dir\\b'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'exttests')
+  void testExt(String path, String ext) {
+    String x = ext(path)
+    assert x == ext :
+      sprintf('Ext(%s) = %s, want %s', path.inspect(), x.inspect(), ext.inspect())
+  }
+
+  private static Object[] basetests() {
+    [
+      // Already clean
+      ['', '.'],
+      ['.', '.'],
+      ['/.', '.'],
+      ['/', '/'],
+      ['////', '/'],
+      ['x/', 'x'],
+      ['abc', 'abc'],
+      ['abc/def', 'def'],
+      ['a/b/.x', '.x'],
+      ['a/b/c.', 'c.'],
+      ['a/b/c.x', 'c.x'],
+      ['c:\\a\\b', 'c:\\a\\b'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'basetests')
+  void testBase(String path, String result) {
+    String s = base(path)
+    assert s == result :
+      sprintf('Base(%s) = %s, want %s', path.inspect(), s.inspect(), result.inspect())
+  }
+
+  private static Object[] dirtests() {
+    [
+      ['', '.'],
+      ['.', '.'],
+      ['/.', '/'],
+      ['/', '/'],
+      ['////', '/'],
+      ['/foo', '/'],
+      ['x/', 'x'],
+      ['abc', '.'],
+      ['abc/def', 'abc'],
+      ['abc////def', 'abc'],
+      ['a/b/.x', 'a/b'],
+      ['a/b/c.', 'a/b'],
+      ['a/b/c.x', 'a/b'],
+      ['c:\\a\\b', '.'],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'dirtests')
+  void testDir(String path, String result) {
+    String s = dir(path)
+    assert s == result :
+      sprintf('Dir(%s) = %s, want %s', path.inspect(), s.inspect(), result.inspect())
+  }
+
+  private static Object[] isAbsTests() {
+    [
+      ['', false],
+      ['/', true],
+      ['/usr/bin/gcc', true],
+      ['..', false],
+      ['/a/../bb', true],
+      ['.', false],
+      ['./', false],
+      ['lala', false],
+      ['c:/a', false],
+      ['\\a', false],
+    ].collect { it.toArray(new Object[2]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'isAbsTests')
+  void testIsAbs(String path, boolean isAbs) {
+    boolean r = isAbs(path)
+    assert r == isAbs :
+      sprintf('IsAbs(%s) = %s, want %s', path.inspect(), r, isAbs)
+  }
+
+  private static Object[] matchTests() {
+    [
+      ['abc', 'abc', true, null],
+      ['*', 'abc', true, null],
+      ['*c', 'abc', true, null],
+      ['a*', 'a', true, null],
+      ['a*', 'abc', true, null],
+      ['a*', 'ab/c', false, null],
+      ['a*/b', 'abc/b', true, null],
+      ['a*/b', 'a/c/b', false, null],
+      ['a*b*c*d*e*/f', 'axbxcxdxe/f', true, null],
+      ['a*b*c*d*e*/f', 'axbxcxdxexxx/f', true, null],
+      ['a*b*c*d*e*/f', 'axbxcxdxe/xxx/f', false, null],
+      ['a*b*c*d*e*/f', 'axbxcxdxexxx/fff', false, null],
+      ['a*b?c*x', 'abxbbxdbxebxczzx', true, null],
+      ['a*b?c*x', 'abxbbxdbxebxczzy', false, null],
+      ['ab[c]', 'abc', true, null],
+      ['ab[b-d]', 'abc', true, null],
+      ['ab[e-g]', 'abc', false, null],
+      ['ab[^c]', 'abc', false, null],
+      ['ab[^b-d]', 'abc', false, null],
+      ['ab[^e-g]', 'abc', true, null],
+      ['a\\*b', 'a*b', true, null],
+      ['a\\*b', 'ab', false, null],
+      ['a?b', 'a☺b', true, null],
+      ['a[^a]b', 'a☺b', true, null],
+      ['a???b', 'a☺b', false, null],
+      ['a[^a][^a][^a]b', 'a☺b', false, null],
+      ['[a-ζ]*', 'α', true, null],
+      ['*[a-ζ]', 'A', false, null],
+      ['a?b', 'a/b', false, null],
+      ['a*b', 'a/b', false, null],
+      ['[\\]a]', ']', true, null],
+      ['[\\-]', '-', true, null],
+      ['[x\\-]', 'x', true, null],
+      ['[x\\-]', '-', true, null],
+      ['[x\\-]', 'z', false, null],
+      ['[\\-x]', 'x', true, null],
+      ['[\\-x]', '-', true, null],
+      ['[\\-x]', 'a', false, null],
+      ['[]a]', ']', false, FilePath.ErrBadPattern],
+      ['[-]', '-', false, FilePath.ErrBadPattern],
+      ['[x-]', 'x', false, FilePath.ErrBadPattern],
+      ['[x-]', '-', false, FilePath.ErrBadPattern],
+      ['[x-]', 'z', false, FilePath.ErrBadPattern],
+      ['[-x]', 'x', false, FilePath.ErrBadPattern],
+      ['[-x]', '-', false, FilePath.ErrBadPattern],
+      ['[-x]', 'a', false, FilePath.ErrBadPattern],
+      ['\\', 'a', false, FilePath.ErrBadPattern],
+      ['[a-b-c]', 'a', false, FilePath.ErrBadPattern],
+      ['[', 'a', false, FilePath.ErrBadPattern],
+      ['[^', 'a', false, FilePath.ErrBadPattern],
+      ['[^bc', 'a', false, FilePath.ErrBadPattern],
+      ['a[', 'a', false, null],
+      ['a[', 'ab', false, FilePath.ErrBadPattern],
+      ['*x', 'xxx', true, null],
+    ].collect { it.toArray(new Object[4]) }.toArray()
+  }
+
+  @Test
+  @Parameters(method = 'matchTests')
+  void testMatch(String pattern, String s, boolean aMatch, Class<? extends Exception> err) {
+    if (err != null) {
+      thrown.expect(err)
+      // TODO: format Match(%#q, %#q) throws %%s want %s
+      thrown.reportMissingExceptionWithMessage(sprintf('Match(%s, %s) throws %%s want %s', pattern.inspect(), s.inspect(), err))
+    }
+    boolean ok = match(pattern, s)
+    assert ok == aMatch :
+      // TODO: format Match(%#q, %#q) = %v want %v
+      sprintf('Match(%s, %s) = %s want %s', pattern.inspect(), s.inspect(), ok, aMatch)
+  }
+}
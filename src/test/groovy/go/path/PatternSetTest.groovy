@@ -0,0 +1,79 @@
+#!/usr/bin/env groovy
+/*
+ * Tests for pattern set for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path
+
+import static go.path.FilePath.*
+import groovy.transform.CompileStatic
+import junitparams.JUnitParamsRunner
+import junitparams.Parameters
+import org.junit.Test
+import org.junit.runner.RunWith
+
+@RunWith(JUnitParamsRunner)
+@CompileStatic
+class PatternSetTest {
+  private static final List<String> PATTERNS = [
+    'abc',
+    '*.log',
+    '*.tmp',
+    'access-*.log',
+    'a*',
+    'a*b?c*x',
+    '*',
+    '?*',
+    '[a-z]*',
+    '*c',
+    'ab[c]',
+    '',
+  ].asImmutable()
+
+  private static Object[] matchTests() {
+    [
+      'abc',
+      'access-2019.log',
+      'error.log',
+      'abxbbxdbxebxczzx',
+      'x.tmp',
+      'a/b.log',
+      'Z',
+      '',
+    ].toArray()
+  }
+
+  @Test
+  @Parameters(method = 'matchTests')
+  void testMatch(String name) {
+    PatternSet patternSet = PatternSet.compile(PATTERNS)
+    List<String> want = PATTERNS.findAll { String pattern -> match(pattern, name) }
+    List<String> have = patternSet.matches(name)
+    assert have == want :
+      sprintf('PatternSet.matches(%s) = %s want %s', name, have, want)
+    assert patternSet.matchesAny(name) == !want.isEmpty()
+  }
+
+  @Test(expected = ErrBadPattern)
+  void testCompileError() {
+    PatternSet.compile('*.go', 'a[')
+  }
+}
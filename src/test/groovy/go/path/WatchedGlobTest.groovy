@@ -0,0 +1,166 @@
+#!/usr/bin/env groovy
+/*
+ * Tests for watched glob for Java port of Go path/filepath package
+ * Copyright ©  Basil Peace
+ *
+ * This file is part of go-java-port.
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation. Basil Peace designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Basil Peace in the LICENSE file that accompanied this code.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this library; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+ */
+package go.path
+
+import static go.path.FilePath.*
+import groovy.transform.CompileStatic
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.util.concurrent.BlockingQueue
+import java.util.concurrent.LinkedBlockingQueue
+import java.util.concurrent.TimeUnit
+
+@CompileStatic
+class WatchedGlobTest {
+  /*
+   * WORKAROUND:
+   * Otherwise we have error:
+   * initializationError
+   * org.junit.internal.runners.rules.ValidationError: The @Rule 'tmpDir' must be public.
+   * <grv87 2019-01-15>
+   */
+  @Rule
+  @SuppressWarnings('PublicInstanceField')
+  public final TemporaryFolder tmpDir = new TemporaryFolder()
+
+  /**
+   * Some WatchService implementations poll file system every few seconds
+   */
+  private static final long TIMEOUT_SECONDS = 30
+
+  private final BlockingQueue<List<String>> changes = new LinkedBlockingQueue<>()
+
+  private String path(String path) {
+    join(tmpDir.root.path, fromSlash(path))
+  }
+
+  /**
+   * awaitChanges waits until all expected changes are reported
+   */
+  private void awaitChanges(List<String> wantAdded, List<String> wantRemoved) {
+    Set<String> added = new HashSet<>()
+    Set<String> removed = new HashSet<>()
+    Set<String> want = wantAdded.collect { String p -> path(p) }.toSet()
+    Set<String> wantRemovedPaths = wantRemoved.collect { String p -> path(p) }.toSet()
+    while (added != want || removed != wantRemovedPaths) {
+      List<String> change = changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+      assert change != null :
+        sprintf('Timed out waiting for changes: added %s want %s, removed %s want %s', added, want, removed, wantRemovedPaths)
+      for (String p : change) {
+        if (p.startsWith('+')) {
+          if (!removed.remove(p.substring(1))) {
+            added.add(p.substring(1))
+          }
+        } else {
+          if (!added.remove(p.substring(1))) {
+            removed.add(p.substring(1))
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testWatch() {
+    tmpDir.newFolder('a')
+    tmpDir.newFile(fromSlash('a/x.go'))
+    tmpDir.newFile(fromSlash('a/y.txt'))
+    String pattern = path('*/*.go')
+    WatchedGlob watched = WatchedGlob.watch(pattern, { List<String> added, List<String> removed ->
+      changes.add(added.collect { String p -> '+' + p } + removed.collect { String p -> '-' + p })
+    } as WatchedGlob.Listener)
+    try {
+      assert watched.matches() == glob(pattern)
+
+      tmpDir.newFile(fromSlash('a/z.go'))
+      tmpDir.newFile(fromSlash('a/z.txt'))
+      awaitChanges(['a/z.go'], [])
+
+      tmpDir.newFolder('b')
+      tmpDir.newFile(fromSlash('b/w.go'))
+      awaitChanges(['b/w.go'], [])
+
+      new File(path('a/x.go')).delete()
+      awaitChanges([], ['a/x.go'])
+
+      new File(path('b/w.go')).delete()
+      new File(path('b')).delete()
+      awaitChanges([], ['b/w.go'])
+
+      assert watched.matches() == glob(pattern)
+    } finally {
+      watched.close()
+    }
+  }
+
+  private static boolean isWatching(String pattern) {
+    Thread.allStackTraces.keySet().any { Thread thread -> thread.name == 'WatchedGlob ' + pattern }
+  }
+
+  @Test
+  void testWatchRootDeleted() {
+    tmpDir.newFolder('r', 'a')
+    tmpDir.newFile(fromSlash('r/a/x.go'))
+    String pattern = path('r/*/*.go')
+    WatchedGlob watched = WatchedGlob.watch(pattern, { List<String> added, List<String> removed ->
+      changes.add(added.collect { String p -> '+' + p } + removed.collect { String p -> '-' + p })
+    } as WatchedGlob.Listener)
+    try {
+      assert watched.matches() == [path('r/a/x.go')]
+
+      new File(path('r')).deleteDir()
+      awaitChanges([], ['r/a/x.go'])
+      assert watched.matches().empty
+
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS)
+      while (isWatching(pattern)) {
+        assert System.nanoTime() < deadline :
+          'Timed out waiting for watching thread to exit'
+        Thread.sleep(10)
+      }
+    } finally {
+      watched.close()
+    }
+  }
+
+  @Test
+  void testWatchListenerThrows() {
+    tmpDir.newFolder('a')
+    String pattern = path('a/*.go')
+    WatchedGlob watched = WatchedGlob.watch(pattern, { List<String> added, List<String> removed ->
+      changes.add(added.collect { String p -> '+' + p } + removed.collect { String p -> '-' + p })
+      throw new IllegalStateException('listener failed')
+    } as WatchedGlob.Listener)
+    try {
+      tmpDir.newFile(fromSlash('a/x.go'))
+      awaitChanges(['a/x.go'], [])
+
+      tmpDir.newFile(fromSlash('a/y.go'))
+      awaitChanges(['a/y.go'], [])
+    } finally {
+      watched.close()
+    }
+  }
+}
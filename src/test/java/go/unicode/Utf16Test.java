@@ -148,4 +148,16 @@ public final class Utf16Test {
     // TODO: format DecodeRune(%q, %q) = %v; want %v
     assertEquals(String.format("decodeRuneInString(%s) = %s; want %s", DefaultGroovyMethods.inspect(rString), got, tt.getWant()), got, tt.getWant());
   }
+
+  @Test
+  @Parameters(method = "decodeRuneTests")
+  @TestCaseName("testDecodeRuneAtOnDecodeRuneTest[{index}]")
+  public void testDecodeRuneAtOnDecodeRuneTest(DecodeRuneTest tt) {
+    String rString = new String(new char[]{tt.getR1(), tt.getR2()});
+    if (tt.getExpectedException() != null) {
+      expectedException.expect(tt.getExpectedException());
+    }
+    int got = decodeRuneAt(rString, 0);
+    assertEquals(String.format("decodeRuneAt(%s, 0) = %s; want %s", DefaultGroovyMethods.inspect(rString), got, tt.getWant()), got, tt.getWant());
+  }
 }